@@ -0,0 +1,91 @@
+#!/usr/bin/env bash
+
+set -euo pipefail
+SCRIPT="$0"
+
+usage() {
+    cat <<eof
+Measures the size of the image, as stored locally and as transferred by a pull
+
+Usage:
+    $SCRIPT [ --pull ] IMAGE...
+
+Options:
+    IMAGE   Docker image to measure
+    --pull  also remove the local image and time pulling it back from its registry
+
+Environment:
+    DOCKER  Docker command (default: docker)
+
+Prints one line per image with the uncompressed size, the gzip-compressed size of its layers
+(close to what a registry stores and a pull downloads) and, with --pull, the seconds to pull it.
+eof
+}
+
+DOCKER="${DOCKER:-docker}"
+PULL=
+IMAGES=()
+
+main() {
+    for image in "${IMAGES[@]}"; do
+        measure_image "$image"
+    done
+}
+
+measure_image() {
+    local image="$1"
+    local size compressed pulled=
+    local t0
+
+    size="$(_docker image inspect --format '{{.Size}}' "$image")"
+    compressed="$(_docker save "$image" | gzip -c | wc -c)"
+
+    if [ -n "$PULL" ]; then
+        _docker rmi "$image" >/dev/null
+        t0="$(now)"
+        _docker pull --quiet "$image" >/dev/null
+        pulled=" pull=$(elapsed "$t0")s"
+    fi
+
+    echo "image=$image size=$(mb "$size")MB compressed=$(mb "$compressed")MB$pulled"
+}
+
+mb() {
+    awk -v bytes="$1" 'BEGIN { printf "%.1f", bytes / 1024 / 1024 }'
+}
+
+now() {
+    date +%s.%N
+}
+
+elapsed() {
+    awk -v t0="$1" -v t1="$(now)" 'BEGIN { printf "%.1f", t1 - t0 }'
+}
+
+_docker() (
+    args=( "$@" )
+    eval set -- "$DOCKER"
+    "$@" "${args[@]}"
+)
+
+for arg; do
+    case "$arg" in
+    -h | --help )
+        usage
+        exit 0
+        ;;
+    --pull )
+        PULL=1
+        ;;
+    * )
+        IMAGES+=( "$arg" )
+        ;;
+    esac
+done
+
+if [ "${#IMAGES[@]}" -eq 0 ]; then
+    echo >&2 "ERROR: no image specified"
+    exit 1
+fi
+
+main
@@ -0,0 +1,113 @@
+#!/usr/bin/env bash
+
+set -euo pipefail
+SCRIPT="$0"
+
+usage() {
+    cat <<eof
+Measures how long containers of the image take to start
+
+Usage:
+    $SCRIPT IMAGE [ RUNS ]
+
+Options:
+    IMAGE   Docker image to measure
+    RUNS    number of containers to start, one at a time (default: 5)
+
+Environment:
+    DOCKER            Docker command (default: docker)
+    DOCKER_RUN_OPTS   extra options for 'docker run', e.g. to change the ports or the hostname
+
+Prints one line per run with the seconds until the master completed its initialization and
+until the healthcheck succeeded, followed by the averages.
+eof
+}
+
+DOCKER="${DOCKER:-docker}"
+DOCKER_RUN_OPTS="${DOCKER_RUN_OPTS:-}"
+IMAGE=
+RUNS=5
+CONTAINER_ID=
+
+main() {
+    local total_initialized=0
+    local total_healthy=0
+
+    for run in $(seq 1 "$RUNS"); do
+        measure_run
+        echo "run=$run image=$IMAGE initialized=${INITIALIZED}s healthy=${HEALTHY}s"
+        total_initialized="$(awk -v a="$total_initialized" -v b="$INITIALIZED" 'BEGIN { print a + b }')"
+        total_healthy="$(awk -v a="$total_healthy" -v b="$HEALTHY" 'BEGIN { print a + b }')"
+    done
+
+    awk -v i="$total_initialized" -v h="$total_healthy" -v n="$RUNS" -v image="$IMAGE" \
+        'BEGIN { printf "average image=%s initialized=%.1fs healthy=%.1fs\n", image, i / n, h / n }'
+}
+
+measure_run() {
+    local t0
+    INITIALIZED=
+    HEALTHY=
+
+    eval set -- "$DOCKER_RUN_OPTS"
+    t0="$(now)"
+    CONTAINER_ID="$(_docker run -d --rm "$@" "$IMAGE")"
+
+    while [ -z "$HEALTHY" ]; do
+        if [ -z "$INITIALIZED" ] && _docker logs "$CONTAINER_ID" 2>&1 | grep -q 'Master has completed initialization'; then
+            INITIALIZED="$(elapsed "$t0")"
+        fi
+        if [ -n "$INITIALIZED" ] && _docker exec "$CONTAINER_ID" hbase2-docker-healthcheck >/dev/null 2>&1; then
+            HEALTHY="$(elapsed "$t0")"
+        fi
+        sleep 0.5
+    done
+
+    _docker kill "$CONTAINER_ID" >/dev/null
+    CONTAINER_ID=
+}
+
+now() {
+    date +%s.%N
+}
+
+elapsed() {
+    awk -v t0="$1" -v t1="$(now)" 'BEGIN { printf "%.1f", t1 - t0 }'
+}
+
+cleanup() {
+    if [ -n "$CONTAINER_ID" ]; then
+        _docker kill "$CONTAINER_ID" >/dev/null 2>&1 || true
+    fi
+}
+
+_docker() (
+    args=( "$@" )
+    eval set -- "$DOCKER"
+    "$@" "${args[@]}"
+)
+
+for arg; do
+    case "$arg" in
+    -h | --help )
+        usage
+        exit 0
+        ;;
+    esac
+done
+
+IMAGE="${1:-}"
+RUNS="${2:-$RUNS}"
+
+if [ -z "$IMAGE" ]; then
+    echo >&2 "ERROR: no image specified"
+    exit 1
+fi
+
+if ! [[ "$RUNS" =~ ^[1-9][0-9]*$ ]]; then
+    echo >&2 "ERROR: invalid number of runs"
+    exit 1
+fi
+
+trap cleanup EXIT
+main
@@ -0,0 +1,79 @@
+package io.github.diogenes1oliveira.hbase2.benchmarks;
+
+import org.apache.hadoop.hbase.client.AdvancedScanResultConsumer;
+import org.apache.hadoop.hbase.client.AsyncTable;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Result;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.diogenes1oliveira.hbase2.benchmarks.HBaseContainerState.ROWS;
+import static io.github.diogenes1oliveira.hbase2.benchmarks.HBaseContainerState.TABLE_NAME;
+import static io.github.diogenes1oliveira.hbase2.benchmarks.HBaseContainerState.puts;
+import static io.github.diogenes1oliveira.hbase2.benchmarks.HBaseContainerState.row;
+
+/**
+ * Throughput of single-row Puts and Gets pipelined through the shared async connection
+ * <p>
+ * Each invocation keeps {@link #inFlight} requests outstanding from a single thread, so inFlight=1 is comparable to
+ * {@link PutGetBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@OperationsPerInvocation(AsyncPutGetBenchmark.OPERATIONS)
+public class AsyncPutGetBenchmark {
+    static final int OPERATIONS = 1_000;
+
+    @Param({"1", "16", "128"})
+    public int inFlight;
+
+    private AsyncTable<AdvancedScanResultConsumer> table;
+    private long nextRow = ROWS;
+
+    @Setup
+    public void setUp(HBaseContainerState state) {
+        table = state.container.getAsyncConnection().getTable(TABLE_NAME);
+    }
+
+    @Benchmark
+    public void put() {
+        for (int done = 0; done < OPERATIONS; done += inFlight) {
+            int count = Math.min(inFlight, OPERATIONS - done);
+            CompletableFuture.allOf(table.put(puts(nextRow, count)).toArray(new CompletableFuture<?>[0])).join();
+            nextRow += count;
+        }
+    }
+
+    @Benchmark
+    public void get() {
+        for (int done = 0; done < OPERATIONS; done += inFlight) {
+            int count = Math.min(inFlight, OPERATIONS - done);
+            List<Get> gets = new ArrayList<>(count);
+            for (int i = 0; i < count; ++i) {
+                gets.add(new Get(row(ThreadLocalRandom.current().nextInt(ROWS))));
+            }
+            List<CompletableFuture<Result>> results = table.get(gets);
+            CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).join();
+        }
+    }
+}
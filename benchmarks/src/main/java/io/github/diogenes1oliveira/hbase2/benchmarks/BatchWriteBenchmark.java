@@ -0,0 +1,61 @@
+package io.github.diogenes1oliveira.hbase2.benchmarks;
+
+import org.apache.hadoop.hbase.client.BufferedMutator;
+import org.apache.hadoop.hbase.client.Put;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.diogenes1oliveira.hbase2.benchmarks.HBaseContainerState.ROWS;
+import static io.github.diogenes1oliveira.hbase2.benchmarks.HBaseContainerState.TABLE_NAME;
+import static io.github.diogenes1oliveira.hbase2.benchmarks.HBaseContainerState.puts;
+
+/**
+ * Throughput of writing batches of rows with {@code Table.put(List)} and with a {@link BufferedMutator}
+ * <p>
+ * Each operation writes {@link #batchSize} rows, so the rows per second are the score times the batch size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class BatchWriteBenchmark {
+    @Param({"10", "100", "1000"})
+    public int batchSize;
+
+    private long nextRow = ROWS;
+
+    @Benchmark
+    public void tablePutList(HBaseContainerState state) throws IOException {
+        state.table.put(nextBatch());
+    }
+
+    @Benchmark
+    public void bufferedMutator(HBaseContainerState state) throws IOException {
+        try (BufferedMutator mutator = state.container.getConnection().getBufferedMutator(TABLE_NAME)) {
+            mutator.mutate(nextBatch());
+        }
+    }
+
+    /**
+     * Building the puts is negligible compared to the RPCs, so it's done within the measured call
+     */
+    private List<Put> nextBatch() {
+        List<Put> batch = puts(nextRow, batchSize);
+        nextRow += batchSize;
+        return batch;
+    }
+}
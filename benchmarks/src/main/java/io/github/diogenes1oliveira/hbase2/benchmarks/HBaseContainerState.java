@@ -0,0 +1,74 @@
+package io.github.diogenes1oliveira.hbase2.benchmarks;
+
+import io.github.diogenes1oliveira.hbase2.HBaseContainer;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.BufferedMutator;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Table;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Container started once per trial, with a table pre-populated with {@link #ROWS} rows
+ * <p>
+ * Every benchmark runs against each {@link HBaseContainer.Profile}, use '-p profile=default' to only run one of them.
+ */
+@State(Scope.Benchmark)
+public class HBaseContainerState {
+    public static final TableName TABLE_NAME = TableName.valueOf("benchmark");
+    public static final byte[] FAMILY = "f".getBytes(StandardCharsets.UTF_8);
+    public static final byte[] QUALIFIER = "q".getBytes(StandardCharsets.UTF_8);
+    public static final int ROWS = 10_000;
+    public static final int VALUE_SIZE = 100;
+
+    @Param({"DEFAULT", "EPHEMERAL"})
+    public HBaseContainer.Profile profile;
+
+    public HBaseContainer container;
+    public Table table;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        container = HBaseContainer.newBuilder().profile(profile).build();
+        container.start();
+        container.createTable(TABLE_NAME, FAMILY);
+        table = container.getConnection().getTable(TABLE_NAME);
+
+        try (BufferedMutator mutator = container.getConnection().getBufferedMutator(TABLE_NAME)) {
+            for (int i = 0; i < ROWS; ++i) {
+                mutator.mutate(put(row(i)));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        table.close();
+        container.stop();
+    }
+
+    public static byte[] row(long i) {
+        return String.format("row-%08d", i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static Put put(byte[] row) {
+        return new Put(row).addColumn(FAMILY, QUALIFIER, new byte[VALUE_SIZE]);
+    }
+
+    public static List<Put> puts(long firstRow, int count) {
+        List<Put> puts = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            puts.add(put(row(firstRow + i)));
+        }
+        return puts;
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.diogenes1oliveira.hbase2.benchmarks;
+
+import org.apache.hadoop.hbase.client.Connection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.github.diogenes1oliveira.hbase2.benchmarks.HBaseContainerState.TABLE_NAME;
+
+/**
+ * Overhead of the HBaseContainer helpers over the shared connection
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class HelperBenchmark {
+    @Benchmark
+    public Connection getConnection(HBaseContainerState state) {
+        return state.container.getConnection();
+    }
+
+    @Benchmark
+    public Boolean getAsAdminTableExists(HBaseContainerState state) {
+        return state.container.getAsAdmin(null, admin -> admin.tableExists(TABLE_NAME));
+    }
+
+    @Benchmark
+    public Boolean adminTableExists(HBaseContainerState state) throws Exception {
+        // baseline for getAsAdmin, without the retry wrapper
+        return state.container.getAdmin().tableExists(TABLE_NAME);
+    }
+}
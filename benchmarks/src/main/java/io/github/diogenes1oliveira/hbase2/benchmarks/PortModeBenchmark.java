@@ -0,0 +1,73 @@
+package io.github.diogenes1oliveira.hbase2.benchmarks;
+
+import io.github.diogenes1oliveira.hbase2.HBaseContainer;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Table;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.diogenes1oliveira.hbase2.benchmarks.HBaseContainerState.FAMILY;
+import static io.github.diogenes1oliveira.hbase2.benchmarks.HBaseContainerState.TABLE_NAME;
+import static io.github.diogenes1oliveira.hbase2.benchmarks.HBaseContainerState.put;
+import static io.github.diogenes1oliveira.hbase2.benchmarks.HBaseContainerState.row;
+
+/**
+ * Latency of a Put followed by a Get of the same row through the port relays of the container and without them
+ * <p>
+ * The setups are MAPPED ports relayed by socat forks or by the single nio process, and PREALLOCATED ports, which
+ * HBase listens on directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class PortModeBenchmark {
+    @Param({"MAPPED:socat", "MAPPED:nio", "PREALLOCATED:none"})
+    public String setup;
+
+    private HBaseContainer container;
+    private Table table;
+    private long nextRow;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String[] modeAndRelay = setup.split(":", 2);
+        container = HBaseContainer.newBuilder()
+                .portMode(HBaseContainer.PortMode.valueOf(modeAndRelay[0]))
+                .build();
+        container.withEnv("HBASE_TCP_RELAY", modeAndRelay[1]);
+        container.start();
+        container.createTable(TABLE_NAME, FAMILY);
+        table = container.getConnection().getTable(TABLE_NAME);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        table.close();
+        container.stop();
+    }
+
+    @Benchmark
+    public Result putThenGet() throws IOException {
+        byte[] row = row(nextRow++);
+        table.put(put(row));
+        return table.get(new Get(row));
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.diogenes1oliveira.hbase2.benchmarks;
+
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Result;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.diogenes1oliveira.hbase2.benchmarks.HBaseContainerState.ROWS;
+import static io.github.diogenes1oliveira.hbase2.benchmarks.HBaseContainerState.put;
+import static io.github.diogenes1oliveira.hbase2.benchmarks.HBaseContainerState.row;
+
+/**
+ * Latency of a single Put or Get through the shared connection
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class PutGetBenchmark {
+    private long nextRow = ROWS;
+
+    @Benchmark
+    public void put(HBaseContainerState state) throws IOException {
+        state.table.put(put(row(nextRow++)));
+    }
+
+    @Benchmark
+    public Result get(HBaseContainerState state) throws IOException {
+        return state.table.get(new Get(row(ThreadLocalRandom.current().nextInt(ROWS))));
+    }
+}
@@ -0,0 +1,50 @@
+package io.github.diogenes1oliveira.hbase2.benchmarks;
+
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.diogenes1oliveira.hbase2.benchmarks.HBaseContainerState.ROWS;
+
+/**
+ * Time to scan the {@link HBaseContainerState#ROWS} pre-populated rows with different scanner caching sizes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ScanBenchmark {
+    @Param({"1", "100", "1000"})
+    public int caching;
+
+    @Benchmark
+    public int fullScan(HBaseContainerState state, Blackhole blackhole) throws IOException {
+        Scan scan = new Scan().setCaching(caching).setLimit(ROWS);
+        int count = 0;
+
+        try (ResultScanner scanner = state.table.getScanner(scan)) {
+            for (Result result : scanner) {
+                blackhole.consume(result);
+                ++count;
+            }
+        }
+
+        return count;
+    }
+}
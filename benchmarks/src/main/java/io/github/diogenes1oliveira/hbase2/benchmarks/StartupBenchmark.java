@@ -0,0 +1,324 @@
+package io.github.diogenes1oliveira.hbase2.benchmarks;
+
+import io.github.diogenes1oliveira.hbase2.HBaseContainer;
+import io.github.diogenes1oliveira.hbase2.StartupTimeline;
+import org.testcontainers.utility.TestcontainersConfiguration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import static io.github.diogenes1oliveira.hbase2.PropertyUtils.envToProps;
+import static io.github.diogenes1oliveira.hbase2.PropertyUtils.mergeProps;
+
+/**
+ * Measures the time to start containers through {@link HBaseContainer.Builder}, broken down by startup phase
+ * <p>
+ * Each scenario is a combination of image, hbase.site.* profile and fresh or reused container, started --runs times.
+ * The p50 and p95 of the time to ready, of each phase in {@link HBaseContainer#getStartupTimeline()} and of the
+ * resident memory of the container processes once ready are printed and written as JSON. If --max-p95-ms is set,
+ * the exit status is 2 when a scenario exceeds it, so CI jobs can gate image changes on it.
+ * <p>
+ * Usage: StartupBenchmark [--runs=N] [--image=IMAGE]... [--profile=NAME:PROP=VALUE,PROP=VALUE]... [--reuse]
+ * [--output=FILE] [--max-p95-ms=MS]
+ * <p>
+ * The image profile is set like the other builder properties, e.g. --profile=small:hbase2-docker.profile=low-memory,
+ * hbase2-docker.memory-limit-mb=512
+ * <p>
+ * Reused containers also require testcontainers.reuse.enable=true in ~/.testcontainers.properties, otherwise the
+ * reused scenarios are skipped. Their first run creates the container and isn't recorded, so the samples only measure
+ * starts that reuse it. The container phases of those starts are the ones of its creation, so only the client phases
+ * are reported for them.
+ */
+public class StartupBenchmark {
+    public static final String DEFAULT_PROFILE = "default";
+
+    private int runs = 5;
+    private final List<String> images = new ArrayList<>();
+    private final Map<String, Properties> profiles = new LinkedHashMap<>();
+    private boolean reuse;
+    private Path output = Paths.get("target", "startup-result.json");
+    private long maxP95Ms = -1;
+
+    public static void main(String[] args) throws IOException {
+        StartupBenchmark benchmark = new StartupBenchmark();
+        benchmark.parseArgs(args);
+
+        List<ScenarioResult> results = benchmark.run();
+        String json = toJson(results);
+
+        if (benchmark.output.getParent() != null) {
+            Files.createDirectories(benchmark.output.getParent());
+        }
+        Files.write(benchmark.output, json.getBytes(StandardCharsets.UTF_8));
+        System.out.println("results written to " + benchmark.output);
+
+        if (benchmark.maxP95Ms >= 0) {
+            for (ScenarioResult result : results) {
+                if (result.percentile(result.timeToReadyMs, 0.95) > benchmark.maxP95Ms) {
+                    System.err.println("ERROR: p95 time to ready of " + result.name() + " exceeds "
+                            + benchmark.maxP95Ms + "ms");
+                    System.exit(2);
+                }
+            }
+        }
+    }
+
+    void parseArgs(String[] args) {
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            String value = parts.length > 1 ? parts[1] : null;
+
+            switch (parts[0]) {
+                case "--runs":
+                    runs = Integer.parseInt(value);
+                    break;
+                case "--image":
+                    images.add(value);
+                    break;
+                case "--profile":
+                    addProfile(value);
+                    break;
+                case "--reuse":
+                    reuse = true;
+                    break;
+                case "--output":
+                    output = Paths.get(value);
+                    break;
+                case "--max-p95-ms":
+                    maxP95Ms = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown argument " + arg);
+            }
+        }
+
+        if (images.isEmpty()) {
+            images.add(baseProps().getProperty("hbase2-docker.image"));
+        }
+        if (profiles.isEmpty()) {
+            profiles.put(DEFAULT_PROFILE, new Properties());
+        }
+    }
+
+    /**
+     * Parses NAME:PROP=VALUE,PROP=VALUE, where PROP is an hbase2-docker.* builder property or an HBase property
+     * without the hbase.site. prefix
+     */
+    void addProfile(String spec) {
+        String[] nameAndProps = spec.split(":", 2);
+        Properties props = new Properties();
+
+        if (nameAndProps.length > 1 && !nameAndProps[1].isEmpty()) {
+            for (String entry : nameAndProps[1].split(",")) {
+                String[] keyAndValue = entry.split("=", 2);
+                if (keyAndValue.length != 2) {
+                    throw new IllegalArgumentException("invalid property '" + entry + "' in profile " + spec);
+                }
+                String key = keyAndValue[0].startsWith("hbase2-docker.")
+                        ? keyAndValue[0]
+                        : "hbase.site." + keyAndValue[0];
+                props.setProperty(key, keyAndValue[1]);
+            }
+        }
+
+        profiles.put(nameAndProps[0], props);
+    }
+
+    List<ScenarioResult> run() {
+        List<ScenarioResult> results = new ArrayList<>();
+        if (reuse && !TestcontainersConfiguration.getInstance().environmentSupportsReuse()) {
+            // each start would create a new container and only the last one would be removed
+            System.err.println("WARN: skipping the reused scenarios, set testcontainers.reuse.enable=true in "
+                    + "~/.testcontainers.properties to run them");
+            reuse = false;
+        }
+
+        for (String image : images) {
+            for (Map.Entry<String, Properties> profile : profiles.entrySet()) {
+                results.add(runScenario(image, profile.getKey(), profile.getValue(), false));
+                if (reuse && isPreallocated(profile.getValue())) {
+                    System.err.println("WARN: skipping the reused scenario of " + profile.getKey()
+                            + ", preallocated ports can't be reused");
+                } else if (reuse) {
+                    results.add(runScenario(image, profile.getKey(), profile.getValue(), true));
+                }
+            }
+        }
+
+        return results;
+    }
+
+    private static boolean isPreallocated(Properties profile) {
+        String portMode = mergeProps(baseProps(), profile).getProperty("hbase2-docker.port-mode", "");
+        return HBaseContainer.PortMode.PREALLOCATED.name().equalsIgnoreCase(portMode);
+    }
+
+    private ScenarioResult runScenario(String image, String profileName, Properties profile, boolean reused) {
+        ScenarioResult result = new ScenarioResult(image, profileName, reused);
+        Properties props = mergeProps(baseProps(), profile);
+        props.setProperty("hbase2-docker.image", image);
+        props.setProperty("hbase2-docker.reuse", Boolean.toString(reused));
+        HBaseContainer container = null;
+
+        try {
+            // the first start of a reused scenario creates the container, so it's a cold start and not recorded
+            for (int run = reused ? -1 : 0; run < runs; ++run) {
+                container = new HBaseContainer.Builder(props).build();
+
+                long t0 = System.nanoTime();
+                container.start();
+                long elapsedNs = System.nanoTime() - t0;
+
+                long residentMemoryMb = residentMemoryMb(container);
+                if (run < 0) {
+                    System.out.printf(Locale.ROOT, "%s creation run: %dms, %dMB%n", result.name(),
+                            elapsedNs / 1_000_000, residentMemoryMb);
+                    continue;
+                }
+                result.record(elapsedNs, container.getStartupTimeline(), residentMemoryMb);
+                System.out.printf(Locale.ROOT, "%s run %d/%d: %dms, %dMB%n", result.name(), run + 1, runs,
+                        elapsedNs / 1_000_000, residentMemoryMb);
+
+                if (!reused) {
+                    container.stop();
+                    container = null;
+                }
+            }
+        } finally {
+            // a reused container is kept between runs and only removed at the end
+            if (container != null) {
+                container.stop();
+            }
+        }
+
+        System.out.println(result.toText());
+        return result;
+    }
+
+    /**
+     * Sum of the resident memory of all the processes in the container, or -1 if it couldn't be read
+     */
+    static long residentMemoryMb(HBaseContainer container) {
+        try {
+            String kb = container.execInContainer("sh", "-c",
+                    "awk '/^VmRSS:/ { sum += $2 } END { print sum }' /proc/[0-9]*/status").getStdout();
+            return Long.parseLong(kb.trim()) / 1024;
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    private static Properties baseProps() {
+        return mergeProps(HBaseContainer.getHBase2DockerDefaultProps(), envToProps(System.getenv()),
+                System.getProperties());
+    }
+
+    static String toJson(List<ScenarioResult> results) {
+        StringBuilder builder = new StringBuilder("[");
+
+        for (int i = 0; i < results.size(); ++i) {
+            builder.append(i == 0 ? "\n" : ",\n");
+            builder.append(results.get(i).toJson());
+        }
+
+        return builder.append("\n]\n").toString();
+    }
+
+    /**
+     * Samples of all the runs of a scenario
+     */
+    static class ScenarioResult {
+        final String image;
+        final String profile;
+        final boolean reused;
+        final List<Long> timeToReadyMs = new ArrayList<>();
+        final List<Long> residentMemoryMb = new ArrayList<>();
+        final Map<String, List<Long>> phasesMs = new LinkedHashMap<>();
+
+        ScenarioResult(String image, String profile, boolean reused) {
+            this.image = image;
+            this.profile = profile;
+            this.reused = reused;
+        }
+
+        String name() {
+            return String.format("%s[profile=%s, reused=%s]", image, profile, reused);
+        }
+
+        void record(long elapsedNs, StartupTimeline timeline, long residentMemoryMb) {
+            timeToReadyMs.add(elapsedNs / 1_000_000);
+            if (residentMemoryMb >= 0) {
+                this.residentMemoryMb.add(residentMemoryMb);
+            }
+
+            for (Map.Entry<String, Duration> entry : timeline.getDurations().entrySet()) {
+                phasesMs.computeIfAbsent(entry.getKey(), key -> new ArrayList<>()).add(entry.getValue().toMillis());
+            }
+        }
+
+        /**
+         * Nearest-rank percentile
+         */
+        long percentile(List<Long> samples, double percentile) {
+            if (samples.isEmpty()) {
+                return -1;
+            }
+
+            long[] sorted = samples.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(index, 0)];
+        }
+
+        String toText() {
+            StringBuilder builder = new StringBuilder(name()).append('\n');
+            builder.append(String.format(Locale.ROOT, "  %-40s p50=%6dms p95=%6dms%n", "time-to-ready",
+                    percentile(timeToReadyMs, 0.50), percentile(timeToReadyMs, 0.95)));
+            builder.append(String.format(Locale.ROOT, "  %-40s p50=%6dMB p95=%6dMB%n", "resident-memory",
+                    percentile(residentMemoryMb, 0.50), percentile(residentMemoryMb, 0.95)));
+
+            for (Map.Entry<String, List<Long>> entry : phasesMs.entrySet()) {
+                builder.append(String.format(Locale.ROOT, "  %-40s p50=%6dms p95=%6dms%n", entry.getKey(),
+                        percentile(entry.getValue(), 0.50), percentile(entry.getValue(), 0.95)));
+            }
+
+            return builder.toString();
+        }
+
+        String toJson() {
+            StringBuilder builder = new StringBuilder();
+            builder.append(String.format(Locale.ROOT, "  {\"image\": \"%s\", \"profile\": \"%s\", \"reused\": %s, "
+                    + "\"runs\": %d,%n", image, profile, reused, timeToReadyMs.size()));
+            builder.append("   \"timeToReadyMs\": ").append(statsJson(timeToReadyMs)).append(",\n");
+            builder.append("   \"residentMemoryMb\": ").append(statsJson(residentMemoryMb)).append(",\n");
+            builder.append("   \"phasesMs\": {");
+
+            int i = 0;
+            for (Map.Entry<String, List<Long>> entry : phasesMs.entrySet()) {
+                builder.append(i++ == 0 ? "\n" : ",\n");
+                builder.append("     \"").append(entry.getKey()).append("\": ").append(statsJson(entry.getValue()));
+            }
+
+            return builder.append("\n   }}").toString();
+        }
+
+        private String statsJson(List<Long> samples) {
+            return String.format(Locale.ROOT, "{\"p50\": %d, \"p95\": %d, \"samples\": %s}",
+                    percentile(samples, 0.50), percentile(samples, 0.95), samples);
+        }
+    }
+}
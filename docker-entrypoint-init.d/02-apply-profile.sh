@@ -0,0 +1,118 @@
+#!/usr/bin/env bash
+
+set -euo pipefail
+
+# Initialization script that applies the presets of HBase settings named by $HBASE_PROFILE, a comma-separated list.
+#
+# The presets only set the variables that are still empty, so explicit HBASE_SITE_* variables win, and the first
+# profile in the list wins over the next ones. It runs before 02-build-configs.sh, which generates the hbase-site.xml
+# from them.
+
+function _apply_ephemeral_profile {
+    # HBase and ZooKeeper data kept in memory and never fsync'ed, for data that doesn't need to survive the container
+    local dir="$HBASE_EPHEMERAL_DIR"
+    mkdir -p "$dir/hbase" "$dir/zookeeper"
+
+    if [ "$(stat -f -c %T "$dir")" != 'tmpfs' ]; then
+        echo >&2 "WARN: $dir is not a tmpfs, mount one with --tmpfs $dir"
+    fi
+
+    # the data bootstrapped at build time is copied, so the pre-bootstrapped image still skips the initialization
+    if [ -z "$(ls -A "$dir/hbase")" ]; then
+        cp -a "$HBASE_SITE_HBASE_ROOTDIR/." "$dir/hbase/"
+        cp -a "$HBASE_SITE_HBASE_ZOOKEEPER_PROPERTY_DATA___DIR/." "$dir/zookeeper/"
+
+        # a restarted container gets the build-time data again, so its region server must be recovered again too
+        if [ -n "${HBASE_BOOTSTRAP_SERVERS_FILE:-}" ] && [ -e "$HBASE_BOOTSTRAP_SERVERS_FILE.done" ]; then
+            mv "$HBASE_BOOTSTRAP_SERVERS_FILE.done" "$HBASE_BOOTSTRAP_SERVERS_FILE"
+        fi
+    fi
+    chown -R "${HBASE_RUN_AS:-root}" "$dir"
+
+    export HBASE_SITE_HBASE_ROOTDIR="$dir/hbase"
+    export HBASE_SITE_HBASE_ZOOKEEPER_PROPERTY_DATA___DIR="$dir/zookeeper"
+    # writes are only kept in the memstores until they're flushed
+    export HBASE_SITE_HBASE_REGIONSERVER_HLOG_ENABLED="${HBASE_SITE_HBASE_REGIONSERVER_HLOG_ENABLED:-false}"
+    # small datasets: frequent small flushes and no 2MB MSLAB chunk per store
+    export HBASE_SITE_HBASE_HREGION_MEMSTORE_FLUSH_SIZE="${HBASE_SITE_HBASE_HREGION_MEMSTORE_FLUSH_SIZE:-16777216}"
+    export HBASE_SITE_HBASE_HREGION_MEMSTORE_MSLAB_ENABLED="${HBASE_SITE_HBASE_HREGION_MEMSTORE_MSLAB_ENABLED:-false}"
+    export HBASE_SITE_HBASE_HSTORE_BLOCKING___STORE___FILES="${HBASE_SITE_HBASE_HSTORE_BLOCKING___STORE___FILES:-100}"
+    # the ZooKeeper embedded in the master JVM reads it as a system property
+    export HBASE_OPTS="${HBASE_OPTS:-} -Dzookeeper.forceSync=no"
+
+    echo >&2 "INFO: applied the ephemeral profile, data in $dir"
+}
+
+function _apply_low_memory_profile {
+    local limit_mb heap_mb handlers flush_mb direct_mb
+    limit_mb="$(_memory_limit_mb)"
+
+    # the other half is left to the metaspace, code cache, thread stacks, direct buffers and the helper processes
+    heap_mb=$(( limit_mb / 2 > 128 ? limit_mb / 2 : 128 ))
+    handlers=$(( limit_mb / 128 ))
+    handlers=$(( handlers < 3 ? 3 : handlers > 30 ? 30 : handlers ))
+    # a quarter of the global memstore, which is a quarter of the heap
+    flush_mb=$(( heap_mb / 16 > 4 ? heap_mb / 16 : 4 ))
+    direct_mb=$(( limit_mb / 8 > 32 ? limit_mb / 8 : 32 ))
+
+    export HBASE_HEAPSIZE="${HBASE_HEAPSIZE:-${heap_mb}m}"
+    export HBASE_SITE_HBASE_REGIONSERVER_HANDLER_COUNT="${HBASE_SITE_HBASE_REGIONSERVER_HANDLER_COUNT:-$handlers}"
+    export HBASE_SITE_HBASE_REGIONSERVER_METAHANDLER_COUNT="${HBASE_SITE_HBASE_REGIONSERVER_METAHANDLER_COUNT:-3}"
+    export HBASE_SITE_HBASE_REGIONSERVER_REPLICATION_HANDLER_COUNT="${HBASE_SITE_HBASE_REGIONSERVER_REPLICATION_HANDLER_COUNT:-1}"
+    # fractions of the heap, 0.4 each by default
+    export HBASE_SITE_HFILE_BLOCK_CACHE_SIZE="${HBASE_SITE_HFILE_BLOCK_CACHE_SIZE:-0.15}"
+    export HBASE_SITE_HBASE_REGIONSERVER_GLOBAL_MEMSTORE_SIZE="${HBASE_SITE_HBASE_REGIONSERVER_GLOBAL_MEMSTORE_SIZE:-0.25}"
+    export HBASE_SITE_HBASE_HREGION_MEMSTORE_FLUSH_SIZE="${HBASE_SITE_HBASE_HREGION_MEMSTORE_FLUSH_SIZE:-$(( flush_mb << 20 ))}"
+    export HBASE_SITE_HBASE_ZOOKEEPER_PROPERTY_MAX___CLIENT___CNXNS="${HBASE_SITE_HBASE_ZOOKEEPER_PROPERTY_MAX___CLIENT___CNXNS:-30}"
+    # ZooKeeper preallocates its transaction log in 64MB blocks, which would take memory in the ephemeral tmpfs
+    HBASE_OPTS="${HBASE_OPTS:-} -XX:+UseSerialGC -Xss512k -XX:ReservedCodeCacheSize=64m"
+    export HBASE_OPTS="$HBASE_OPTS -XX:MaxDirectMemorySize=${direct_mb}m -Dzookeeper.preAllocSize=4096"
+    HBASE_INFO_SERVERS="${HBASE_INFO_SERVERS:-master}"
+
+    echo >&2 "INFO: applied the low-memory profile for ${limit_mb}MB: heap=$HBASE_HEAPSIZE, handlers=$handlers"
+}
+
+# memory limit of the container cgroup, or $HBASE_MEMORY_LIMIT_MB if it isn't limited
+function _memory_limit_mb {
+    local limit=''
+
+    if [ -r /sys/fs/cgroup/memory.max ]; then
+        limit="$(cat /sys/fs/cgroup/memory.max)"
+    elif [ -r /sys/fs/cgroup/memory/memory.limit_in_bytes ]; then
+        limit="$(cat /sys/fs/cgroup/memory/memory.limit_in_bytes)"
+    fi
+
+    # unlimited is 'max' in cgroup v2 and close to the maximum 64-bit value in cgroup v1
+    if [[ "$limit" =~ ^[0-9]+$ ]] && [ "${#limit}" -lt 16 ]; then
+        echo $(( limit / 1024 / 1024 ))
+    else
+        echo "$HBASE_MEMORY_LIMIT_MB"
+    fi
+}
+
+for _profile in ${HBASE_PROFILE//,/ }; do
+    case "$_profile" in
+    default )
+        ;;
+    ephemeral )
+        _apply_ephemeral_profile ;;
+    low-memory )
+        _apply_low_memory_profile ;;
+    * )
+        echo >&2 "ERROR: unknown profile '$_profile'"
+        exit 1
+        ;;
+    esac
+done
+
+# the master info server is kept, since it serves the /jmx of the whole standalone JVM to the status probe
+case "${HBASE_INFO_SERVERS:-all}" in
+all )
+    ;;
+master )
+    export HBASE_SITE_HBASE_REGIONSERVER_INFO_PORT=-1 ;;
+* )
+    echo >&2 "ERROR: unknown info servers '$HBASE_INFO_SERVERS'"
+    exit 1
+    ;;
+esac
@@ -0,0 +1,34 @@
+#!/usr/bin/env bash
+
+set -euo pipefail
+
+# Initialization script that waits for the host:port addresses in $HBASE_WAIT_FOR, a comma or whitespace-separated
+# list, to accept connections before HBase starts.
+#
+# In distributed mode, the master and region servers give up if ZooKeeper stays unreachable for a while, so
+# containers started together with the ZooKeeper one wait for it here, up to $HBASE_WAIT_FOR_TIMEOUT seconds.
+#
+# This runs before 04-map-tcp-ports.sh, so relays to the other containers are only started once they're reachable.
+
+function _wait_for_host {
+    local host="${1%:*}"
+    local port="${1##*:}"
+    local timeout="${HBASE_WAIT_FOR_TIMEOUT:-60}"
+    local t0="$SECONDS"
+
+    while ! nc -z -w 1 "$host" "$port" 2>/dev/null; do
+        if [ $(( SECONDS - t0 )) -ge "$timeout" ]; then
+            echo >&2 "ERROR: $host:$port still not reachable after ${timeout}s"
+            exit 1
+        fi
+        sleep 0.5
+    done
+
+    echo >&2 "INFO: $host:$port reachable after $(( SECONDS - t0 ))s"
+}
+
+_addresses="${HBASE_WAIT_FOR:-}"
+
+for _address in ${_addresses//,/ }; do
+    _wait_for_host "$_address"
+done
@@ -3,6 +3,8 @@
 set -euo pipefail
 
 # Initialization script that sets up port mappings from $HBASE_PORT_MAPPINGS
+#
+# Runs after 03-wait-for-hosts.sh, so the hosts in $HBASE_WAIT_FOR are reachable by the time their relays start.
 
 if [ -n "${HBASE_PORT_MAPPINGS:-}" ]; then
     (
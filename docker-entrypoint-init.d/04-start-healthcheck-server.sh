@@ -3,11 +3,9 @@
 set -euo pipefail
 
 # Starts the healthcheck server in the background
+# It also serves the status probe used by hbase2-docker-healthcheck on $HBASE_STATUS_PORT
 
-socat \
-    -v -d -d \
-    TCP-LISTEN:"$HBASE_HEALTHCHECK_PORT",reuseaddr,fork \
-    SYSTEM:"hbase2-docker-healthcheck html" &
+hbase2-docker-healthcheck-server &
 
 pid="$!"
 disown -h
@@ -0,0 +1,23 @@
+#!/usr/bin/env bash
+
+set -euo pipefail
+
+# Initialization script for the pre-bootstrapped image.
+#
+# The regions created at build time are still assigned to the region server that ran then. If the hostname or
+# ports are different now, HBase doesn't recognize that server name and the regions would stay assigned to it.
+# Recreating its (empty) WAL directory makes the master consider the old server as crashed, so it reassigns its
+# regions to the new region server on startup, without replaying anything.
+
+if [ -s "${HBASE_BOOTSTRAP_SERVERS_FILE:-}" ]; then
+    while IFS='' read -r server || [ -n "$server" ]; do
+        if [ -n "$server" ]; then
+            mkdir -p "$HBASE_SITE_HBASE_ROOTDIR/WALs/$server"
+            echo >&2 "INFO: scheduled recovery of bootstrap region server $server"
+        fi
+    done < "$HBASE_BOOTSTRAP_SERVERS_FILE"
+
+    chown -R "${HBASE_RUN_AS:-root}" "$HBASE_SITE_HBASE_ROOTDIR/WALs"
+    # only needed once, a restarted container already has the new server names
+    mv "$HBASE_BOOTSTRAP_SERVERS_FILE" "$HBASE_BOOTSTRAP_SERVERS_FILE.done"
+fi
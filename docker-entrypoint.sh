@@ -2,6 +2,13 @@
 
 set -euo pipefail
 
+# records the end of each startup phase in $HBASE_TIMELINE_FILE, without failing the start
+function _timeline {
+    hbase2-docker-timeline "$@" || echo >&2 "WARN: failed to record startup phase ${*: -1}"
+}
+
+_timeline --reset entrypoint
+
 if [ -d /docker-entrypoint-init.d ]; then
     echo >&2 "INFO: finding initialization scripts"
 
@@ -9,9 +16,12 @@ if [ -d /docker-entrypoint-init.d ]; then
         echo >&2 "INFO: executing initialization script $script"
         # shellcheck disable=SC1090
         source "$script"
+        _timeline "init:$(basename "$script")"
     done < <(find /docker-entrypoint-init.d -mindepth 1 -maxdepth 1 -name '*.sh' | sort )
 
     echo >&2 "INFO: executed all initialization scripts"
 fi
 
+_timeline init-done
+
 exec "$@"
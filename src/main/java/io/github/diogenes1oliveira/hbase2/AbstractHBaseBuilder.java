@@ -0,0 +1,88 @@
+package io.github.diogenes1oliveira.hbase2;
+
+import io.github.diogenes1oliveira.hbase2.interfaces.DockerHostnameFunction;
+
+import java.time.Duration;
+import java.util.Properties;
+
+import static io.github.diogenes1oliveira.hbase2.HBaseContainer.getHBase2DockerDefaultProps;
+import static io.github.diogenes1oliveira.hbase2.PropertyUtils.envToProps;
+import static io.github.diogenes1oliveira.hbase2.PropertyUtils.getProp;
+import static io.github.diogenes1oliveira.hbase2.PropertyUtils.getProps;
+import static io.github.diogenes1oliveira.hbase2.PropertyUtils.mergeProps;
+
+/**
+ * Settings shared by the builders of a single container and of a cluster
+ * <p>
+ * Reads the hbase2-docker.image, hbase2-docker.timeout, hbase2-docker.debug, hbase2-docker.hostname and
+ * hbase2-docker.hostname-mapper properties, and the hbase.site.* ones as the HBase properties.
+ *
+ * @param <B> concrete builder type, returned by the setters
+ */
+public abstract class AbstractHBaseBuilder<B extends AbstractHBaseBuilder<B>> {
+    protected String image;
+    protected Duration timeout;
+    protected boolean debug;
+    protected Properties connectionProperties;
+    protected DockerHostnameFunction hostnameFunction;
+
+    protected AbstractHBaseBuilder(Properties props) {
+        this.image = getProp(props, "hbase2-docker.image");
+        this.timeout = getProp(props, "hbase2-docker.timeout", Duration::parse);
+        this.debug = getProp(props, "hbase2-docker.debug", Boolean::parseBoolean);
+        this.connectionProperties = getProps(props, "hbase.site.");
+
+        String hostname = getProp(props, "hbase2-docker.hostname", false);
+        String hostnameMapper = getProp(props, "hbase2-docker.hostname-mapper", false);
+
+        if (hostname != null) {
+            this.hostnameFunction = DockerHostnameFunctions.constant(hostname);
+        } else if (hostnameMapper != null) {
+            this.hostnameFunction = DockerHostnameFunctions.fromPropertySpec(hostnameMapper);
+        } else {
+            this.hostnameFunction = DockerHostnameFunctions.localhost();
+        }
+    }
+
+    /**
+     * Properties from the bundled defaults, overridden by the environment and then by the system properties
+     */
+    protected static Properties getDefaultBuilderProps() {
+        return mergeProps(getHBase2DockerDefaultProps(), envToProps(System.getenv()), System.getProperties());
+    }
+
+    public B image(String image) {
+        this.image = image;
+        return self();
+    }
+
+    public B timeout(Duration timeout) {
+        this.timeout = timeout;
+        return self();
+    }
+
+    public B properties(Properties props) {
+        this.connectionProperties = (Properties) props.clone();
+        return self();
+    }
+
+    public B debug(boolean debug) {
+        this.debug = debug;
+        return self();
+    }
+
+    public B hostname(String hostname) {
+        this.hostnameFunction = DockerHostnameFunctions.constant(hostname);
+        return self();
+    }
+
+    public B hostname(DockerHostnameFunction hostnameFunction) {
+        this.hostnameFunction = hostnameFunction;
+        return self();
+    }
+
+    @SuppressWarnings("unchecked")
+    protected B self() {
+        return (B) this;
+    }
+}
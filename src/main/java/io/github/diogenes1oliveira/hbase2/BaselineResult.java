@@ -0,0 +1,41 @@
+package io.github.diogenes1oliveira.hbase2;
+
+import org.apache.hadoop.hbase.TableName;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Outcome of capturing or restoring a baseline, see {@link HBaseContainer#captureBaseline(String)}
+ */
+public class BaselineResult {
+    private final String name;
+    private final List<TableName> tableNames;
+    private final Duration duration;
+
+    public BaselineResult(String name, List<TableName> tableNames, Duration duration) {
+        this.name = name;
+        this.tableNames = tableNames;
+        this.duration = duration;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Tables included in the baseline
+     */
+    public List<TableName> getTableNames() {
+        return tableNames;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BaselineResult{name=%s, tables=%d, duration=%s}", name, tableNames.size(), duration);
+    }
+}
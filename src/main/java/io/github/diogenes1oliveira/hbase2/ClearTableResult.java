@@ -0,0 +1,71 @@
+package io.github.diogenes1oliveira.hbase2;
+
+import org.apache.hadoop.hbase.TableName;
+
+import java.time.Duration;
+
+/**
+ * Outcome of {@link HBaseContainer#clearTable(TableName)}
+ */
+public class ClearTableResult {
+    /**
+     * How the rows were removed
+     */
+    public enum Strategy {
+        /**
+         * Rows were scanned and deleted through the client, keeping the regions in place
+         */
+        DELETE,
+        /**
+         * The table was disabled, truncated preserving the splits and enabled again
+         */
+        TRUNCATE
+    }
+
+    private final TableName tableName;
+    private final Strategy strategy;
+    private final long estimatedSizeBytes;
+    private final long deletedRows;
+    private final Duration duration;
+
+    public ClearTableResult(TableName tableName, Strategy strategy, long estimatedSizeBytes, long deletedRows,
+            Duration duration) {
+        this.tableName = tableName;
+        this.strategy = strategy;
+        this.estimatedSizeBytes = estimatedSizeBytes;
+        this.deletedRows = deletedRows;
+        this.duration = duration;
+    }
+
+    public TableName getTableName() {
+        return tableName;
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Size of the store files and memstores as reported by the region servers when the strategy was chosen
+     */
+    public long getEstimatedSizeBytes() {
+        return estimatedSizeBytes;
+    }
+
+    /**
+     * Number of deleted rows, or -1 if the table was truncated
+     */
+    public long getDeletedRows() {
+        return deletedRows;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ClearTableResult{table=%s, strategy=%s, estimatedSizeBytes=%d, deletedRows=%d, duration=%s}",
+                tableName, strategy, estimatedSizeBytes, deletedRows, duration);
+    }
+}
@@ -0,0 +1,518 @@
+package io.github.diogenes1oliveira.hbase2;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.model.Bind;
+import com.github.dockerjava.api.model.Volume;
+import io.github.diogenes1oliveira.hbase2.interfaces.DockerHostnameFunction;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.client.Admin;
+import org.apache.hadoop.hbase.client.AsyncAdmin;
+import org.apache.hadoop.hbase.client.AsyncConnection;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.ConnectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.lifecycle.Startable;
+import org.testcontainers.lifecycle.Startables;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+
+import static io.github.diogenes1oliveira.hbase2.HBaseContainer.CLIENT_CHECK_TIMEOUT;
+import static io.github.diogenes1oliveira.hbase2.HBaseContainer.ENV_DOTENV_NAME;
+import static io.github.diogenes1oliveira.hbase2.HBaseContainer.ENV_HOSTNAME_MASTER;
+import static io.github.diogenes1oliveira.hbase2.HBaseContainer.ENV_HOSTNAME_REGIONSERVER;
+import static io.github.diogenes1oliveira.hbase2.HBaseContainer.ENV_MASTER;
+import static io.github.diogenes1oliveira.hbase2.HBaseContainer.ENV_PORT_MAPPINGS;
+import static io.github.diogenes1oliveira.hbase2.HBaseContainer.ENV_PORT_MASTER;
+import static io.github.diogenes1oliveira.hbase2.HBaseContainer.ENV_PORT_METRICS;
+import static io.github.diogenes1oliveira.hbase2.HBaseContainer.ENV_PORT_ZOOKEEPER;
+import static io.github.diogenes1oliveira.hbase2.HBaseContainer.ENV_QUORUM;
+import static io.github.diogenes1oliveira.hbase2.PropertyUtils.getProp;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * HBase in distributed mode, with ZooKeeper, the master and each region server in a container of their own
+ * <p>
+ * All the nodes run the same image, each with its role in $HBASE_COMMAND, and are started in parallel on a shared
+ * Docker network. The master and region servers wait for ZooKeeper within their containers, and the cluster is only
+ * considered started once every region server has registered with the master and a client can read hbase:meta.
+ * <p>
+ * Like in {@link HBaseContainer.PortMode#PREALLOCATED}, free host ports are reserved for every node before the start
+ * and bound to the same ports in its container, so each node advertises the address the client connects to. Within
+ * each container, the ports of the other nodes are relayed to them over the network, so the advertised addresses
+ * also work between the nodes. ZooKeeper doesn't connect to the other nodes, so it has no relays. This requires a
+ * local Docker daemon.
+ * <p>
+ * The Prometheus exporter is disabled in the nodes unless enabled with {@link #withMetrics(boolean)}, in which case
+ * the master and each region server export their own JMX beans on a port of their own.
+ * <p>
+ * The master and region servers share a Docker volume as the HBase root directory, which is removed when the cluster
+ * stops.
+ */
+@SuppressWarnings({ "resource" })
+public class HBaseClusterContainer implements Startable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HBaseClusterContainer.class);
+
+    public static final int DEFAULT_REGION_SERVERS = 3;
+    public static final String ZOOKEEPER_ALIAS = "zookeeper";
+    public static final String MASTER_ALIAS = "hbase-master";
+    public static final String REGIONSERVER_ALIAS_PREFIX = "hbase-regionserver-";
+    public static final String ROOT_DIR = "/var/lib/hbase";
+
+    public static final String ENV_COMMAND = "HBASE_COMMAND";
+    public static final String ENV_DISTRIBUTED = "HBASE_SITE_HBASE_CLUSTER_DISTRIBUTED";
+    public static final String ENV_MANAGES_ZK = "HBASE_MANAGES_ZK";
+    public static final String ENV_WAIT_FOR = "HBASE_WAIT_FOR";
+    public static final String ENV_EXPECTED_STATUS = "HBASE_HEALTHCHECK_EXPECTED_STATUS";
+    public static final String ENV_PORT_HEALTHCHECK = "HBASE_HEALTHCHECK_PORT";
+    public static final String ENV_PORT_MASTER_INFO = "HBASE_SITE_HBASE_MASTER_INFO_PORT";
+    public static final String ENV_PORT_REGIONSERVER = "HBASE_SITE_HBASE_REGIONSERVER_PORT";
+    public static final String ENV_PORT_REGIONSERVER_INFO = "HBASE_SITE_HBASE_REGIONSERVER_INFO_PORT";
+    public static final String ENV_MIN_REGION_SERVERS = "HBASE_SITE_HBASE_MASTER_WAIT_ON_REGIONSERVERS_MINTOSTART";
+
+    private final String hostname;
+    private final boolean debug;
+    private final Network network = Network.newNetwork();
+    private final Node zookeeper;
+    private final Node master;
+    private final List<Node> regionServers = new ArrayList<>();
+    private final Properties connectionProperties = new Properties();
+    private final HBaseConnectionHolder connectionHolder = new HBaseConnectionHolder(this::getConfiguration);
+    private final HBaseWaitStrategy hbaseWaitStrategy;
+    private volatile Configuration baseConfiguration = null;
+    private volatile String volumeName = null;
+    private boolean metrics = false;
+
+    public HBaseClusterContainer(String image, int regionServerCount, Duration timeout, boolean debug,
+            DockerHostnameFunction hostnameFunction, Properties defaultProps) {
+        if (regionServerCount < 1) {
+            throw new IllegalArgumentException("Number of region servers must be positive: " + regionServerCount);
+        }
+
+        this.hostname = hostnameFunction.getHostname(DockerClientFactory.instance().client());
+        this.debug = debug;
+        this.hbaseWaitStrategy = new HBaseWaitStrategy(this::isClientReady);
+
+        this.zookeeper = new Node(ZOOKEEPER_ALIAS, "zookeeper", image, timeout, defaultProps);
+        this.master = new Node(MASTER_ALIAS, "master", image, timeout, defaultProps);
+        for (int i = 1; i <= regionServerCount; ++i) {
+            regionServers.add(new Node(REGIONSERVER_ALIAS_PREFIX + i, "regionserver", image, timeout, defaultProps));
+        }
+
+        LOGGER.info("Starting cluster against image={} with {} region servers, timeout={} and debug={}", image,
+                regionServerCount, timeout, debug);
+        if (debug) {
+            LOGGER.info("Default properties: {}", defaultProps);
+        }
+    }
+
+    /**
+     * Starts all the nodes in parallel and waits for every region server to register with the master
+     */
+    @Override
+    public void start() {
+        connectionHolder.invalidate();
+        baseConfiguration = null;
+        connectionProperties.clear();
+
+        createRootDirVolume();
+        preallocatePorts();
+
+        List<GenericContainer<?>> containers = new ArrayList<>();
+        for (Node node : getNodes()) {
+            containers.add(node.container);
+        }
+        // each node has its own startup timeout
+        HBaseContainerUtils.await(Startables.deepStart(containers), Long.MAX_VALUE);
+
+        loadConnectionProperties();
+        baseConfiguration = HBaseContainerUtils.buildConfiguration(connectionProperties);
+        if (debug) {
+            LOGGER.info("Final cluster properties: {}", connectionProperties);
+        }
+        LOGGER.info("cluster started, phases: {}", hbaseWaitStrategy.getPhaseTimings());
+    }
+
+    /**
+     * Whether the master and region servers export their JMX beans in the Prometheus format, taking effect on the
+     * next start
+     */
+    public HBaseClusterContainer withMetrics(boolean metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    @Override
+    public void stop() {
+        LOGGER.info("closing shared connection");
+        connectionHolder.close();
+
+        for (Node node : getNodes()) {
+            node.container.stop();
+        }
+        network.close();
+        removeRootDirVolume();
+    }
+
+    /**
+     * Strategy used to wait for the master, with the timings of the last start
+     */
+    public HBaseWaitStrategy getHBaseWaitStrategy() {
+        return hbaseWaitStrategy;
+    }
+
+    public GenericContainer<?> getZooKeeper() {
+        return zookeeper.container;
+    }
+
+    public GenericContainer<?> getMaster() {
+        return master.container;
+    }
+
+    /**
+     * Containers of the region servers, e.g. to follow their logs or to stop one and see its regions reassigned
+     */
+    public List<GenericContainer<?>> getRegionServers() {
+        List<GenericContainer<?>> containers = new ArrayList<>();
+        for (Node node : regionServers) {
+            containers.add(node.container);
+        }
+        return containers;
+    }
+
+    public int getRegionServerCount() {
+        return regionServers.size();
+    }
+
+    /**
+     * URLs of the Prometheus endpoints of the master and region servers by network alias, empty unless enabled with
+     * {@link #withMetrics(boolean)}
+     */
+    public Map<String, String> getMetricsUrls() {
+        Map<String, String> urls = new LinkedHashMap<>();
+
+        for (Node node : getNodes()) {
+            if (node.metricsPort > 0) {
+                urls.put(node.alias, "http://" + node.container.getHost() + ":" + node.metricsPort + "/metrics");
+            }
+        }
+
+        return urls;
+    }
+
+    /**
+     * Connection properties to connect to the cluster
+     */
+    public Properties getProperties() {
+        return connectionProperties;
+    }
+
+    /**
+     * Connection configuration to connect to the cluster, see {@link HBaseContainer#getConfiguration()}
+     */
+    public Configuration getConfiguration() {
+        Configuration base = baseConfiguration;
+        if (base == null) {
+            return HBaseContainerUtils.buildConfiguration(getProperties());
+        }
+
+        return new Configuration(base);
+    }
+
+    /**
+     * Shared connection to the cluster, which must not be closed by the caller
+     */
+    public Connection getConnection() {
+        return connectionHolder.getConnection();
+    }
+
+    /**
+     * Shared admin bound to the shared connection, which must not be closed by the caller
+     */
+    public Admin getAdmin() {
+        return connectionHolder.getAdmin();
+    }
+
+    /**
+     * Shared asynchronous connection to the cluster, which must not be closed by the caller
+     */
+    public AsyncConnection getAsyncConnection() {
+        return connectionHolder.getAsyncConnection();
+    }
+
+    /**
+     * New connection to the cluster, to be closed by the caller
+     */
+    public Connection createConnection() {
+        try {
+            return ConnectionFactory.createConnection(this.getConfiguration());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<Node> getNodes() {
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(zookeeper);
+        nodes.add(master);
+        nodes.addAll(regionServers);
+        return nodes;
+    }
+
+    /**
+     * Whether every region server is registered and hbase:meta is reachable, used by the wait strategy
+     */
+    private boolean isClientReady() {
+        loadConnectionProperties();
+        AsyncAdmin admin = connectionHolder.getAsyncConnection().getAdmin();
+
+        Collection<ServerName> servers = HBaseContainerUtils.await(admin.getRegionServers(),
+                CLIENT_CHECK_TIMEOUT.toNanos());
+        if (servers.size() < regionServers.size()) {
+            LOGGER.debug("{} of {} region servers registered", servers.size(), regionServers.size());
+            return false;
+        }
+
+        HBaseContainerUtils.await(admin.listTableNames(false), CLIENT_CHECK_TIMEOUT.toNanos());
+        return true;
+    }
+
+    private void preallocatePorts() {
+        // RPC, info and metrics (except for ZooKeeper) and healthcheck ports of each node
+        int count = 3 * getNodes().size() - 1;
+        if (metrics) {
+            count += getNodes().size() - 1;
+        }
+        Iterator<Integer> ports = HBaseContainerUtils.findFreePorts(count).iterator();
+
+        for (Node node : getNodes()) {
+            node.port = ports.next();
+            node.infoPort = node == zookeeper ? -1 : ports.next();
+            node.metricsPort = node == zookeeper || !metrics ? -1 : ports.next();
+            node.healthcheckPort = ports.next();
+        }
+
+        Map<String, String> commonEnv = new HashMap<>();
+        commonEnv.put(ENV_DISTRIBUTED, "true");
+        commonEnv.put(ENV_MANAGES_ZK, "false");
+        commonEnv.put(ENV_DOTENV_NAME, "");
+        commonEnv.put(ENV_EXPECTED_STATUS, "");
+        commonEnv.put(ENV_WAIT_FOR, ZOOKEEPER_ALIAS + ":" + zookeeper.port);
+        // the client port is set separately, HQuorumPeer doesn't expect one in the quorum
+        commonEnv.put(ENV_QUORUM, hostname);
+        commonEnv.put(ENV_PORT_ZOOKEEPER, Integer.toString(zookeeper.port));
+        commonEnv.put(ENV_HOSTNAME_MASTER, hostname);
+        commonEnv.put(ENV_PORT_MASTER, Integer.toString(master.port));
+        commonEnv.put(ENV_MASTER, hostname + ":" + master.port);
+
+        for (Node node : getNodes()) {
+            Map<String, String> env = new HashMap<>(commonEnv);
+            env.put(ENV_PORT_HEALTHCHECK, Integer.toString(node.healthcheckPort));
+            env.put(ENV_PORT_MAPPINGS, buildRelays(node));
+            env.put(ENV_PORT_METRICS, node.metricsPort > 0 ? Integer.toString(node.metricsPort) : "");
+
+            if (node == zookeeper) {
+                // HQuorumPeer looks for its own address in the quorum
+                env.put(ENV_QUORUM, "localhost");
+                env.put(ENV_WAIT_FOR, "");
+            } else if (node == master) {
+                env.put(ENV_PORT_MASTER_INFO, Integer.toString(node.infoPort));
+                env.put(ENV_EXPECTED_STATUS, "1 active master, 0 backup masters, " + regionServers.size()
+                        + " servers");
+                // meta is only assigned once all the region servers are up, instead of moving later
+                env.put(ENV_MIN_REGION_SERVERS, Integer.toString(regionServers.size()));
+            } else {
+                env.put(ENV_HOSTNAME_REGIONSERVER, hostname);
+                env.put(ENV_PORT_REGIONSERVER, Integer.toString(node.port));
+                env.put(ENV_PORT_REGIONSERVER_INFO, Integer.toString(node.infoPort));
+            }
+
+            node.configure(env, node == master ? hbaseWaitStrategy : null);
+            if (debug) {
+                LOGGER.info("Preallocated ports of {}: {}", node.alias, env);
+            }
+        }
+    }
+
+    /**
+     * Relays from the RPC ports of the other nodes to them, so their advertised addresses work within the node
+     */
+    private String buildRelays(Node node) {
+        if (node == zookeeper) {
+            return "";
+        }
+
+        return getNodes().stream()
+                .filter(other -> other != node)
+                .map(other -> other.port + ":" + other.alias + ":" + other.port)
+                .collect(joining(", "));
+    }
+
+    private void createRootDirVolume() {
+        DockerClient client = DockerClientFactory.instance().client();
+        String name = "hbase2-docker-cluster-" + UUID.randomUUID();
+
+        // labeled like the networks, so it's also cleaned up if the JVM dies before stopping the cluster
+        client.createVolumeCmd()
+                .withName(name)
+                .withLabels(new HashMap<>(DockerClientFactory.DEFAULT_LABELS))
+                .exec();
+        volumeName = name;
+    }
+
+    private void removeRootDirVolume() {
+        String name = volumeName;
+        if (name == null) {
+            return;
+        }
+
+        try {
+            DockerClientFactory.instance().client().removeVolumeCmd(name).exec();
+            volumeName = null;
+        } catch (RuntimeException e) {
+            LOGGER.warn("failed to remove volume {}", name, e);
+        }
+    }
+
+    private void loadConnectionProperties() {
+        synchronized (connectionProperties) {
+            if (!connectionProperties.isEmpty()) {
+                return;
+            }
+            master.container.copyFileFromContainer("/etc/hbase/hbase-site.properties", stream -> {
+                connectionProperties.load(stream);
+                return null;
+            });
+        }
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Container of a single HBase process and the ports reserved for it
+     */
+    private class Node {
+        final String alias;
+        final GenericContainer<?> container;
+        final Duration timeout;
+        int port;
+        int infoPort;
+        int metricsPort;
+        int healthcheckPort;
+
+        Node(String alias, String command, String image, Duration timeout, Properties defaultProps) {
+            // ZooKeeper keeps its data in its own container
+            boolean sharesRootDir = !"zookeeper".equals(command);
+
+            this.alias = alias;
+            this.timeout = timeout;
+            this.container = new GenericContainer<>(image)
+                    .withNetwork(network)
+                    .withNetworkAliases(alias)
+                    .withEnv(ENV_COMMAND, command)
+                    .withCreateContainerCmdModifier(cmd -> {
+                        if (sharesRootDir && volumeName != null) {
+                            cmd.getHostConfig().withBinds(new Bind(volumeName, new Volume(ROOT_DIR)));
+                        }
+                    });
+
+            HBaseContainerUtils.configureSite(container, hostname, defaultProps);
+        }
+
+        /**
+         * Binds the reserved ports and sets the environment and how to wait for the node, taking effect on the next
+         * start
+         *
+         * @param waitStrategy strategy to wait for the node, or null to wait for its healthcheck
+         */
+        void configure(Map<String, String> env, HBaseWaitStrategy waitStrategy) {
+            List<Integer> ports = new ArrayList<>();
+            ports.add(port);
+            if (infoPort > 0) {
+                ports.add(infoPort);
+            }
+            if (metricsPort > 0) {
+                ports.add(metricsPort);
+            }
+            ports.add(healthcheckPort);
+
+            List<String> bindings = new ArrayList<>();
+            for (int p : ports) {
+                bindings.add(p + ":" + p);
+            }
+
+            env.forEach(container::withEnv);
+            container.setExposedPorts(ports);
+            container.setPortBindings(bindings);
+
+            if (waitStrategy != null) {
+                container.waitingFor(waitStrategy.withStartupTimeout(timeout));
+            } else {
+                container.waitingFor(Wait.forHttp("/")
+                        .forPort(healthcheckPort)
+                        .forStatusCode(200)
+                        .withStartupTimeout(timeout));
+            }
+        }
+    }
+
+    @SuppressWarnings("resource")
+    public static class Builder extends AbstractHBaseBuilder<Builder> {
+        private int regionServerCount = DEFAULT_REGION_SERVERS;
+        private boolean metrics;
+
+        public Builder() {
+            this(getDefaultBuilderProps());
+        }
+
+        public Builder(Properties props) {
+            super(props);
+            this.metrics = Boolean.parseBoolean(getProp(props, "hbase2-docker.cluster-metrics", false));
+
+            String regionServers = getProp(props, "hbase2-docker.region-servers", false);
+            if (regionServers != null) {
+                this.regionServerCount = Integer.parseInt(regionServers);
+            }
+        }
+
+        /**
+         * Number of region servers, defaults to {@link HBaseClusterContainer#DEFAULT_REGION_SERVERS}
+         */
+        public Builder regionServers(int regionServerCount) {
+            this.regionServerCount = regionServerCount;
+            return this;
+        }
+
+        /**
+         * Whether the master and region servers export their JMX beans in the Prometheus format, defaults to false
+         */
+        public Builder metrics(boolean metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        public HBaseClusterContainer build() {
+            return new HBaseClusterContainer(image, regionServerCount, timeout, debug, hostnameFunction,
+                    connectionProperties).withMetrics(metrics);
+        }
+    }
+
+}
@@ -0,0 +1,174 @@
+package io.github.diogenes1oliveira.hbase2;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.client.Admin;
+import org.apache.hadoop.hbase.client.AsyncConnection;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.ConnectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Lazily created, thread-safe holder for a shared HBase {@link Connection}, {@link Admin} and {@link AsyncConnection}
+ * <p>
+ * The connection is only built on the first access and is rebuilt on the next access after being closed or aborted.
+ * Callers must not close the returned instances, use {@link #invalidate()} or {@link #close()} instead.
+ */
+public class HBaseConnectionHolder implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HBaseConnectionHolder.class);
+
+    private final Supplier<Configuration> configurationSupplier;
+    private final Object lock = new Object();
+    private volatile Connection connection;
+    private volatile Admin admin;
+    private volatile AsyncConnection asyncConnection;
+
+    public HBaseConnectionHolder(Supplier<Configuration> configurationSupplier) {
+        this.configurationSupplier = configurationSupplier;
+    }
+
+    /**
+     * Shared connection, created on demand
+     */
+    public Connection getConnection() {
+        Connection current = connection;
+        if (isUsable(current)) {
+            return current;
+        }
+
+        synchronized (lock) {
+            current = connection;
+            if (isUsable(current)) {
+                return current;
+            }
+            if (current != null) {
+                LOGGER.warn("shared connection is closed or aborted, creating a new one");
+            }
+            closeConnectionQuietly();
+
+            try {
+                current = ConnectionFactory.createConnection(configurationSupplier.get());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            connection = current;
+            return current;
+        }
+    }
+
+    /**
+     * Shared admin bound to the shared connection, created on demand
+     */
+    public Admin getAdmin() {
+        Admin current = admin;
+        if (current != null && current.getConnection() == connection && isUsable(connection)) {
+            return current;
+        }
+
+        synchronized (lock) {
+            Connection currentConnection = getConnection();
+            current = admin;
+            if (current == null || current.getConnection() != currentConnection) {
+                try {
+                    current = currentConnection.getAdmin();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                admin = current;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Shared asynchronous connection, created on demand
+     */
+    public AsyncConnection getAsyncConnection() {
+        AsyncConnection current = asyncConnection;
+        if (current != null && !current.isClosed()) {
+            return current;
+        }
+
+        synchronized (lock) {
+            current = asyncConnection;
+            if (current != null && !current.isClosed()) {
+                return current;
+            }
+
+            try {
+                current = ConnectionFactory.createAsyncConnection(configurationSupplier.get()).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("interrupted while creating the async connection", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw new UncheckedIOException((IOException) cause);
+                }
+                throw new IllegalStateException("failed to create the async connection", cause);
+            }
+            asyncConnection = current;
+            return current;
+        }
+    }
+
+    /**
+     * Closes the current connections, so the next access creates new ones
+     */
+    public void invalidate() {
+        synchronized (lock) {
+            closeConnectionQuietly();
+            closeAsyncConnectionQuietly();
+        }
+    }
+
+    @Override
+    public void close() {
+        invalidate();
+    }
+
+    private void closeConnectionQuietly() {
+        Admin currentAdmin = admin;
+        Connection currentConnection = connection;
+        admin = null;
+        connection = null;
+
+        if (currentAdmin != null) {
+            try {
+                currentAdmin.close();
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("failed to close shared admin", e);
+            }
+        }
+        if (currentConnection != null && !currentConnection.isClosed()) {
+            try {
+                currentConnection.close();
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("failed to close shared connection", e);
+            }
+        }
+    }
+
+    private void closeAsyncConnectionQuietly() {
+        AsyncConnection currentAsyncConnection = asyncConnection;
+        asyncConnection = null;
+
+        if (currentAsyncConnection != null) {
+            try {
+                currentAsyncConnection.close();
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("failed to close shared async connection", e);
+            }
+        }
+    }
+
+    private static boolean isUsable(Connection connection) {
+        return connection != null && !connection.isClosed() && !connection.isAborted();
+    }
+}
@@ -6,41 +6,65 @@ import io.github.diogenes1oliveira.hbase2.interfaces.CheckedFunction;
 import io.github.diogenes1oliveira.hbase2.interfaces.DockerHostnameFunction;
 import io.github.diogenes1oliveira.hbase2.interfaces.IOConsumer;
 import io.github.diogenes1oliveira.hbase2.interfaces.IOFunction;
+import io.github.diogenes1oliveira.hbase2.interfaces.RetryPolicy;
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.NamespaceDescriptor;
+import org.apache.hadoop.hbase.NamespaceExistException;
+import org.apache.hadoop.hbase.NamespaceNotFoundException;
+import org.apache.hadoop.hbase.RegionMetrics;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.Size;
 import org.apache.hadoop.hbase.TableExistsException;
 import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.TableNotDisabledException;
 import org.apache.hadoop.hbase.TableNotEnabledException;
 import org.apache.hadoop.hbase.TableNotFoundException;
 import org.apache.hadoop.hbase.client.Admin;
+import org.apache.hadoop.hbase.client.AsyncAdmin;
+import org.apache.hadoop.hbase.client.AsyncConnection;
 import org.apache.hadoop.hbase.client.ColumnFamilyDescriptorBuilder;
 import org.apache.hadoop.hbase.client.Connection;
 import org.apache.hadoop.hbase.client.ConnectionFactory;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.client.SnapshotDescription;
+import org.apache.hadoop.hbase.client.Table;
 import org.apache.hadoop.hbase.client.TableDescriptor;
 import org.apache.hadoop.hbase.client.TableDescriptorBuilder;
+import org.apache.hadoop.hbase.filter.FilterList;
+import org.apache.hadoop.hbase.filter.FirstKeyOnlyFilter;
+import org.apache.hadoop.hbase.filter.KeyOnlyFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testcontainers.containers.GenericContainer;
-import org.testcontainers.containers.wait.strategy.Wait;
 import org.testcontainers.images.builder.Transferable;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
 
-import static io.github.diogenes1oliveira.hbase2.PropertyUtils.envToProps;
 import static io.github.diogenes1oliveira.hbase2.PropertyUtils.getProp;
-import static io.github.diogenes1oliveira.hbase2.PropertyUtils.getProps;
 import static io.github.diogenes1oliveira.hbase2.PropertyUtils.getResourceProps;
-import static io.github.diogenes1oliveira.hbase2.PropertyUtils.mergeProps;
-import static io.github.diogenes1oliveira.hbase2.PropertyUtils.propToEnv;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.stream;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
 
 /**
  * Testcontainer for HBase 2
@@ -49,6 +73,60 @@ import static java.util.Arrays.stream;
 public class HBaseContainer extends GenericContainer<HBaseContainer> {
     private static final Logger LOGGER = LoggerFactory.getLogger(HBaseContainer.class);
 
+    /**
+     * How the HBase ports are exposed to the host
+     */
+    public enum PortMode {
+        /**
+         * Docker maps the default ports to random host ports, which are only known after the container starts, so
+         * they're sent to the container in a .env file and forwarded within it
+         */
+        MAPPED,
+        /**
+         * Free host ports are reserved before the container starts and bound to the same ports in the container, so
+         * the final configuration is passed as plain environment variables and nothing is waited for or forwarded
+         * <p>
+         * The ports are looked up on the machine running the tests, so this mode requires a local Docker daemon.
+         * <p>
+         * Every start binds other ports, so an existing container would never be found for reuse: this mode can't be
+         * combined with {@link #withReuse(boolean)}.
+         */
+        PREALLOCATED
+    }
+
+    /**
+     * Preset of HBase settings applied by the image, see $HBASE_PROFILE in the README
+     * <p>
+     * Profiles can be combined, e.g. {@link #EPHEMERAL} and {@link #LOW_MEMORY} for many short-lived containers.
+     */
+    public enum Profile {
+        /**
+         * Settings of the image, with the data written through the WAL to the container filesystem
+         */
+        DEFAULT,
+        /**
+         * Data that doesn't need to survive the container: the HBase and ZooKeeper data directories are kept in a
+         * tmpfs, the WAL and the ZooKeeper fsyncs are disabled and the memstores are sized for small datasets
+         */
+        EPHEMERAL,
+        /**
+         * Heap, RPC handlers, block cache, memstores and ZooKeeper sized from the memory limit of the container, see
+         * {@link Builder#memoryLimit(long)}, and no region server info server
+         */
+        LOW_MEMORY;
+
+        /**
+         * Value of $HBASE_PROFILE in the container
+         */
+        public String getEnvValue() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+
+        public static Profile fromEnvValue(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
     public static final String ENV_DOTENV_NAME = "HBASE_ENV_FILE";
     public static final String ENV_DOTENV_VALUE = "/.env";
     public static final String ENV_PORT_ZOOKEEPER = "HBASE_SITE_HBASE_ZOOKEEPER_PROPERTY_CLIENT___PORT";
@@ -58,6 +136,22 @@ public class HBaseContainer extends GenericContainer<HBaseContainer> {
     public static final String ENV_QUORUM = "HBASE_SITE_HBASE_ZOOKEEPER_QUORUM";
     public static final String ENV_HOSTNAME_REGIONSERVER = "HBASE_SITE_HBASE_REGIONSERVER_HOSTNAME";
     public static final String ENV_PORT_MAPPINGS = "HBASE_PORT_MAPPINGS";
+    public static final String ENV_PORT_METRICS = "HBASE_METRICS_PORT";
+    public static final String ENV_PROFILE = "HBASE_PROFILE";
+    public static final String EPHEMERAL_DIR = "/var/lib/hbase2-docker/ephemeral";
+
+    public static final int DEFAULT_ADMIN_PARALLELISM = 8;
+    public static final long DEFAULT_CLEAR_TABLE_THRESHOLD_BYTES = 4L * 1024 * 1024;
+    public static final int CLEAR_TABLE_BATCH_SIZE = 1000;
+    public static final String BASELINE_SNAPSHOT_PREFIX = "baseline.";
+    public static final Duration CLIENT_CHECK_TIMEOUT = Duration.ofSeconds(5);
+    public static final String ENV_TIMELINE_FILE = "HBASE_TIMELINE_FILE";
+    /**
+     * Default of $HBASE_TIMELINE_FILE, used if the container environment doesn't set it
+     */
+    public static final String CONTAINER_TIMELINE_FILE = "/var/run/hbase2-docker-timeline.json";
+
+    private static final Pattern BASELINE_NAME_PATTERN = Pattern.compile("[a-zA-Z0-9_-]+");
 
     public static final Map<String, Integer> DEFAULT_PORTS = new HashMap<String, Integer>() {
         {
@@ -66,13 +160,29 @@ public class HBaseContainer extends GenericContainer<HBaseContainer> {
             put("HBASE_SITE_HBASE_MASTER_INFO_PORT", 16010);
             put("HBASE_SITE_HBASE_REGIONSERVER_PORT", 16020);
             put("HBASE_SITE_HBASE_REGIONSERVER_INFO_PORT", 16030);
+            put(ENV_PORT_METRICS, 17002);
         }
     };
     private final Map<String, String> env = new HashMap<>();
     private final Properties connectionProperties = new Properties();
+    private final HBaseConnectionHolder connectionHolder = new HBaseConnectionHolder(this::getConfiguration);
+    private final RetryStats retryStats = new RetryStats();
+    private volatile Configuration baseConfiguration = null;
     private final String hostname;
     private final long timeoutNs;
     private final boolean debug;
+    private final HBaseWaitStrategy hbaseWaitStrategy;
+    private final List<StartupTimeline.Phase> clientPhases = new CopyOnWriteArrayList<>();
+    private volatile StartupTimeline startupTimeline = StartupTimeline.EMPTY;
+    private volatile Instant startRequestedAt = Instant.EPOCH;
+    private RetryPolicy retryPolicy;
+    private int adminParallelism = DEFAULT_ADMIN_PARALLELISM;
+    private long clearTableThresholdBytes = DEFAULT_CLEAR_TABLE_THRESHOLD_BYTES;
+    private PortMode portMode = PortMode.MAPPED;
+    private final List<Integer> preallocatedPorts = new ArrayList<>();
+    private boolean ephemeralTmpFsAdded = false;
+    private Set<Profile> profiles = EnumSet.of(Profile.DEFAULT);
+    private long memoryLimitBytes = 0;
 
     /**
      * Name of the Docker image to be used
@@ -88,14 +198,11 @@ public class HBaseContainer extends GenericContainer<HBaseContainer> {
         this.hostname = hostnameFunction.getHostname(this.getDockerClient());
         if (!"localhost".equals(this.hostname)) {
             LOGGER.info("setting hostname {}=127.0.0.1", this.hostname);
-            withExtraHost(hostname, "127.0.0.1");
         }
+        HBaseContainerUtils.configureSite(this, hostname, defaultProps);
 
         this.timeoutNs = timeout.toNanos();
-        for (String propName : defaultProps.stringPropertyNames()) {
-            String envName = "HBASE_SITE_" + propToEnv(propName);
-            withEnv(envName, defaultProps.getProperty(propName));
-        }
+        this.retryPolicy = RetryPolicies.exponentialBackoff(timeout);
         this.debug = debug;
 
         LOGGER.info("Starting container against image={} with timeout={} and debug={}", image, timeout, debug);
@@ -103,15 +210,130 @@ public class HBaseContainer extends GenericContainer<HBaseContainer> {
             LOGGER.info("Default properties: {}", defaultProps);
         }
 
-        withStartupTimeout(timeout);
         withExposedPorts(DEFAULT_PORTS.values().toArray(new Integer[0]));
-        waitingFor(Wait.forSuccessfulCommand("hbase2-docker-healthcheck"));
+        this.hbaseWaitStrategy = new HBaseWaitStrategy(this::isClientReady);
+        waitingFor(hbaseWaitStrategy);
+        withStartupTimeout(timeout);
+        withCreateContainerCmdModifier(cmd -> {
+            if (memoryLimitBytes > 0) {
+                // no swap either, otherwise the limit would only apply to the resident memory
+                cmd.getHostConfig().withMemory(memoryLimitBytes).withMemorySwap(memoryLimitBytes);
+            }
+        });
+    }
+
+    @Override
+    protected void configure() {
+        clientPhases.clear();
+        startRequestedAt = recordPhase("start-requested");
+        super.configure();
+
+        // only the ports of the previous start are replaced, the ones set up by the caller are kept
+        releasePreallocatedPorts();
+        if (portMode == PortMode.PREALLOCATED) {
+            if (isShouldBeReused()) {
+                throw new IllegalStateException("Preallocated ports change on every start, so the container can't be "
+                        + "reused; use PortMode.MAPPED instead");
+            }
+            preallocatePorts();
+        } else {
+            withEnv(ENV_DOTENV_NAME, ENV_DOTENV_VALUE);
+            List<Integer> exposedPorts = new ArrayList<>(getExposedPorts());
+            for (int port : DEFAULT_PORTS.values()) {
+                if (!exposedPorts.contains(port)) {
+                    exposedPorts.add(port);
+                }
+            }
+            setExposedPorts(exposedPorts);
+        }
+
+        withEnv(ENV_PROFILE, profiles.stream().map(Profile::getEnvValue).collect(joining(",")));
+        // withTmpFs() replaces the whole mapping, so the caller's mounts are carried over
+        Map<String, String> tmpFs = new HashMap<>();
+        if (getTmpFsMapping() != null) {
+            tmpFs.putAll(getTmpFsMapping());
+        }
+        if (ephemeralTmpFsAdded) {
+            tmpFs.remove(EPHEMERAL_DIR);
+        }
+        ephemeralTmpFsAdded = profiles.contains(Profile.EPHEMERAL);
+        if (ephemeralTmpFsAdded) {
+            tmpFs.put(EPHEMERAL_DIR, "rw,mode=1777");
+        }
+        withTmpFs(tmpFs);
+    }
+
+    private void preallocatePorts() {
+        List<String> names = new ArrayList<>(DEFAULT_PORTS.keySet());
+        List<Integer> ports = HBaseContainerUtils.findFreePorts(names.size());
+        Map<String, Integer> portsByName = new HashMap<>();
+        List<String> bindings = new ArrayList<>();
+
+        for (int i = 0; i < names.size(); ++i) {
+            portsByName.put(names.get(i), ports.get(i));
+            bindings.add(ports.get(i) + ":" + ports.get(i));
+        }
+
+        // HBase listens on the host ports within the container, so neither the .env file nor forwarding is needed
+        Map<String, String> portsEnv = buildPortsEnv(portsByName);
+        portsEnv.put(ENV_DOTENV_NAME, "");
+        portsEnv.put(ENV_PORT_MAPPINGS, "");
+        portsEnv.forEach(this::withEnv);
+
+        List<Integer> exposedPorts = new ArrayList<>(getExposedPorts());
+        exposedPorts.removeAll(DEFAULT_PORTS.values());
+        exposedPorts.addAll(ports);
+        setExposedPorts(exposedPorts);
+        List<String> portBindings = new ArrayList<>(getPortBindings());
+        portBindings.addAll(bindings);
+        setPortBindings(portBindings);
+        preallocatedPorts.addAll(ports);
+
+        if (debug) {
+            LOGGER.info("Preallocated ports: {}", portsEnv);
+        }
+    }
+
+    /**
+     * Removes the exposed ports and bindings added by {@link #preallocatePorts()} on the previous start
+     */
+    private void releasePreallocatedPorts() {
+        if (preallocatedPorts.isEmpty()) {
+            return;
+        }
+
+        List<Integer> exposedPorts = new ArrayList<>(getExposedPorts());
+        exposedPorts.removeAll(preallocatedPorts);
+        setExposedPorts(exposedPorts);
+
+        List<String> portBindings = new ArrayList<>(getPortBindings());
+        for (int port : preallocatedPorts) {
+            portBindings.remove(port + ":" + port);
+        }
+        setPortBindings(portBindings);
+        preallocatedPorts.clear();
+    }
+
+    @Override
+    protected void containerIsCreated(String containerId) {
+        // includes pulling the image
+        recordPhase("container-created");
     }
 
     @Override
     protected void containerIsStarting(InspectContainerResponse containerInfo) {
-        env.put(ENV_HOSTNAME_MASTER, hostname);
-        env.put(ENV_HOSTNAME_REGIONSERVER, hostname);
+        recordPhase("container-running");
+        // the container might be restarting, so the connection to the previous one is stale
+        connectionHolder.invalidate();
+        baseConfiguration = null;
+        connectionProperties.clear();
+
+        if (portMode == PortMode.PREALLOCATED) {
+            // the configuration was already passed in the environment
+            return;
+        }
+
+        Map<String, Integer> mappedPorts = new HashMap<>();
         List<String> portMappings = new ArrayList<>();
 
         for (Map.Entry<String, Integer> entry : DEFAULT_PORTS.entrySet()) {
@@ -120,13 +342,12 @@ public class HBaseContainer extends GenericContainer<HBaseContainer> {
 
             int mappedPort = getMappedPort(originalPort);
 
-            env.put(name, Integer.toString(mappedPort));
+            mappedPorts.put(name, mappedPort);
             portMappings.add(originalPort + ":" + mappedPort);
         }
 
+        env.putAll(buildPortsEnv(mappedPorts));
         env.put(ENV_PORT_MAPPINGS, String.join(", ", portMappings));
-        env.put(ENV_MASTER, env.get(ENV_HOSTNAME_MASTER) + ":" + env.get(ENV_PORT_MASTER));
-        env.put(ENV_QUORUM, env.get(ENV_HOSTNAME_MASTER) + ":" + env.get(ENV_PORT_ZOOKEEPER));
 
         String envContents = asEnvContents(env);
         if (debug) {
@@ -137,18 +358,181 @@ public class HBaseContainer extends GenericContainer<HBaseContainer> {
         LOGGER.info("copying .env to container");
         copyFileToContainer(Transferable.of(envBytes), ENV_DOTENV_VALUE);
         LOGGER.info(".env copied");
+        recordPhase("env-copied");
     }
 
     @Override
     protected void containerIsStarted(InspectContainerResponse containerInfo) {
-        copyFileFromContainer("/etc/hbase/hbase-site.properties", stream -> {
-            connectionProperties.load(stream);
-            return null;
-        });
+        recordWaitPhases();
+        loadConnectionProperties();
+        baseConfiguration = HBaseContainerUtils.buildConfiguration(connectionProperties);
 
         if (debug) {
             LOGGER.info("Final container properties: {}", connectionProperties);
         }
+
+        recordPhase("container-started");
+        List<StartupTimeline.Phase> phases = new ArrayList<>(clientPhases);
+        phases.addAll(loadContainerPhases(containerInfo));
+        // a reused container still has the phases of the start that created it
+        startupTimeline = new StartupTimeline(phases).since(startRequestedAt);
+        LOGGER.info("startup timeline: {}", startupTimeline);
+    }
+
+    @Override
+    protected void containerIsStopping(InspectContainerResponse containerInfo) {
+        LOGGER.info("closing shared connection");
+        connectionHolder.close();
+        LOGGER.info("helper calls: {}", retryStats);
+    }
+
+    /**
+     * Sets the delay between the client-side checks made while waiting for the container to start
+     */
+    public HBaseContainer withWaitPollInterval(Duration pollInterval) {
+        hbaseWaitStrategy.withPollInterval(pollInterval);
+        return this;
+    }
+
+    /**
+     * Strategy used to wait for the container to start, with the timings of the last start
+     */
+    public HBaseWaitStrategy getHBaseWaitStrategy() {
+        return hbaseWaitStrategy;
+    }
+
+    /**
+     * Snapshot of the server-side metrics, scraped from the master and region server info ports
+     * <p>
+     * Take one before and one after the code under test and use {@link ServerMetrics#diff(ServerMetrics,
+     * ServerMetrics)} to get its server-side cost. The values are refreshed by HBase every few seconds, so a snapshot
+     * can be up to {@link ServerMetrics#MAX_STALENESS} (~10s) stale.
+     */
+    public ServerMetrics getServerMetrics() {
+        Properties props = getProperties();
+        int masterInfoPort = getProp(props, "hbase.master.info.port", Integer::parseInt);
+        String regionServerInfoPortValue = getProp(props, "hbase.regionserver.info.port", false);
+        int regionServerInfoPort = regionServerInfoPortValue == null ? -1 : Integer.parseInt(regionServerInfoPortValue);
+        if (regionServerInfoPort <= 0) {
+            // disabled, but the master and region server share the JVM, so the master info server also exposes the
+            // region server beans
+            regionServerInfoPort = masterInfoPort;
+        }
+
+        return ServerMetrics.fetch(getHost(), masterInfoPort, regionServerInfoPort);
+    }
+
+    /**
+     * URL of the Prometheus endpoint exposing the JMX beans of the HBase JVM
+     */
+    public String getMetricsUrl() {
+        // preallocated ports are bound to the same port in the container, so they aren't mapped
+        int mappedPort = portMode == PortMode.PREALLOCATED
+                ? Integer.parseInt(getEnvMap().get(ENV_PORT_METRICS))
+                : getMappedPort(DEFAULT_PORTS.get(ENV_PORT_METRICS));
+
+        return "http://" + getHost() + ":" + mappedPort + "/metrics";
+    }
+
+    /**
+     * Sets how the HBase ports are exposed to the host, taking effect on the next start
+     */
+    public HBaseContainer withPortMode(PortMode portMode) {
+        this.portMode = portMode;
+        return this;
+    }
+
+    public PortMode getPortMode() {
+        return portMode;
+    }
+
+    /**
+     * Sets the presets of HBase settings applied by the image, taking effect on the next start
+     */
+    public HBaseContainer withProfile(Profile... profiles) {
+        this.profiles = profiles.length == 0
+                ? EnumSet.of(Profile.DEFAULT)
+                : EnumSet.copyOf(Arrays.asList(profiles));
+        return this;
+    }
+
+    public Set<Profile> getProfiles() {
+        return Collections.unmodifiableSet(profiles);
+    }
+
+    /**
+     * Sets the memory limit of the container, taking effect on the next start
+     * <p>
+     * The {@link Profile#LOW_MEMORY} profile sizes HBase from it. Zero means no limit.
+     */
+    public HBaseContainer withMemoryLimit(long memoryLimitBytes) {
+        this.memoryLimitBytes = memoryLimitBytes;
+        return this;
+    }
+
+    public long getMemoryLimit() {
+        return memoryLimitBytes;
+    }
+
+    /**
+     * Phases of the last start, as recorded by this class and by the scripts in the container
+     * <p>
+     * Empty until the container is started. Phases completed before the start was requested are dropped, so a start
+     * that reused an existing container only has the client phases.
+     */
+    public StartupTimeline getStartupTimeline() {
+        return startupTimeline;
+    }
+
+    /**
+     * Sets the policy used by the helper methods to retry failed calls
+     */
+    public HBaseContainer withRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Sets the maximum number of concurrent admin procedures in bulk operations like {@link #dropTables()}
+     */
+    public HBaseContainer withAdminParallelism(int adminParallelism) {
+        if (adminParallelism < 1) {
+            throw new IllegalArgumentException("Admin parallelism must be positive: " + adminParallelism);
+        }
+        this.adminParallelism = adminParallelism;
+        return this;
+    }
+
+    public int getAdminParallelism() {
+        return adminParallelism;
+    }
+
+    /**
+     * Sets the estimated table size above which {@link #clearTable(TableName)} truncates the table instead of
+     * deleting its rows
+     */
+    public HBaseContainer withClearTableThreshold(long clearTableThresholdBytes) {
+        if (clearTableThresholdBytes < 0) {
+            throw new IllegalArgumentException("Clear table threshold must not be negative: "
+                    + clearTableThresholdBytes);
+        }
+        this.clearTableThresholdBytes = clearTableThresholdBytes;
+        return this;
+    }
+
+    public long getClearTableThreshold() {
+        return clearTableThresholdBytes;
+    }
+
+    /**
+     * Attempts and time spent in the calls made by the helper methods
+     */
+    public RetryStats getRetryStats() {
+        return retryStats;
     }
 
     /**
@@ -160,20 +544,59 @@ public class HBaseContainer extends GenericContainer<HBaseContainer> {
 
     /**
      * Connection configuration to connect to HBase within the container
+     * <p>
+     * The configuration is built only once after the container starts. Each call returns a copy of it, which is
+     * cheap because it doesn't parse the XML resources again, and changes to the copy don't affect other callers.
      */
     public Configuration getConfiguration() {
-        Configuration conf = HBaseConfiguration.create();
-        Properties props = getProperties();
-
-        for (String name : props.stringPropertyNames()) {
-            String value = props.getProperty(name);
-            conf.set(name, value);
+        Configuration base = baseConfiguration;
+        if (base == null) {
+            return HBaseContainerUtils.buildConfiguration(getProperties());
         }
 
-        return conf;
+        return new Configuration(base);
     }
 
+    /**
+     * Shared connection to HBase within the container
+     * <p>
+     * The connection is created on the first call and reused by all the helper methods. It must not be closed by the
+     * caller, use {@link #createConnection()} to get a connection you own.
+     */
     public Connection getConnection() {
+        return connectionHolder.getConnection();
+    }
+
+    /**
+     * Shared admin bound to the shared connection
+     * <p>
+     * Same as {@link #getConnection()}, it must not be closed by the caller.
+     */
+    public Admin getAdmin() {
+        return connectionHolder.getAdmin();
+    }
+
+    /**
+     * Shared asynchronous connection, same as {@link #getConnection()}
+     * <p>
+     * Its tables and admin don't block the calling thread, so many operations can be in flight from a few threads,
+     * e.g. {@code getAsyncConnection().getTable(tableName).put(puts)}. It must not be closed by the caller.
+     */
+    public AsyncConnection getAsyncConnection() {
+        return connectionHolder.getAsyncConnection();
+    }
+
+    /**
+     * Admin bound to the shared asynchronous connection
+     */
+    public AsyncAdmin getAsyncAdmin() {
+        return connectionHolder.getAsyncConnection().getAdmin();
+    }
+
+    /**
+     * New connection to HBase within the container, to be closed by the caller
+     */
+    public Connection createConnection() {
         try {
             return ConnectionFactory.createConnection(this.getConfiguration());
         } catch (IOException e) {
@@ -195,22 +618,157 @@ public class HBaseContainer extends GenericContainer<HBaseContainer> {
     }
 
     public void createTable(String name, String family, String... splits) {
-        byte[][] bytesSplits = stream(splits).map(s -> s.getBytes(UTF_8)).toArray(byte[][]::new);
+        createTable(TableName.valueOf(name), family.getBytes(UTF_8), toBytes(splits));
+    }
+
+    /**
+     * Creates the table if it doesn't exist yet, without blocking
+     * <p>
+     * Like the other async helpers, failures are retried by the client according to its configuration instead of
+     * {@link #getRetryPolicy()}.
+     *
+     * @return future that completes once the table is enabled
+     */
+    public CompletableFuture<Void> createTableAsync(TableName tableName, byte[] family, byte[]... splits) {
+        TableDescriptor descriptor = TableDescriptorBuilder.newBuilder(tableName)
+                .setColumnFamily(ColumnFamilyDescriptorBuilder.of(family))
+                .build();
+        AsyncAdmin admin = getAsyncAdmin();
+        CompletableFuture<Void> creating = splits.length != 0
+                ? admin.createTable(descriptor, splits)
+                : admin.createTable(descriptor);
+
+        return HBaseContainerUtils.ignoreFailures(creating, TableExistsException.class);
+    }
 
-        createTable(TableName.valueOf(name), family.getBytes(UTF_8), bytesSplits);
+    public CompletableFuture<Void> createTableAsync(String name, String family, String... splits) {
+        return createTableAsync(TableName.valueOf(name), family.getBytes(UTF_8), toBytes(splits));
     }
 
     public void truncateTable(TableName tableName) {
         runAsAdmin(admin -> admin.disableTable(tableName), TableNotEnabledException.class,
                 TableNotFoundException.class);
         runAsAdmin(admin -> admin.truncateTable(tableName, true));
-        runAsAdmin(admin -> admin.enableTable(tableName));
+        // HBase 2 already enables the table at the end of the truncate procedure
+        runAsAdmin(admin -> admin.enableTable(tableName), TableNotDisabledException.class);
     }
 
     public void truncateTable(String name) {
         truncateTable(TableName.valueOf(name));
     }
 
+    /**
+     * Same as {@link #truncateTable(TableName)}, without blocking
+     *
+     * @return future that completes once the table is enabled again
+     */
+    public CompletableFuture<Void> truncateTableAsync(TableName tableName) {
+        AsyncAdmin admin = getAsyncAdmin();
+        CompletableFuture<Void> disabling = HBaseContainerUtils.ignoreFailures(admin.disableTable(tableName),
+                TableNotEnabledException.class, TableNotFoundException.class);
+
+        return disabling
+                .thenCompose(ignored -> admin.truncateTable(tableName, true))
+                .thenCompose(ignored -> {
+                    return HBaseContainerUtils.ignoreFailures(admin.enableTable(tableName),
+                            TableNotDisabledException.class);
+                });
+    }
+
+    public CompletableFuture<Void> truncateTableAsync(String name) {
+        return truncateTableAsync(TableName.valueOf(name));
+    }
+
+    /**
+     * Removes all the rows of the table, picking the cheapest strategy for its size
+     * <p>
+     * Truncating recreates every region, which takes seconds even for a nearly empty table. So if the estimated size
+     * is at most {@link #getClearTableThreshold()}, the rows are scanned and deleted in batches instead, otherwise the
+     * table is truncated.
+     * <p>
+     * Deleted rows leave tombstones behind until the next major compaction, so cells later written with explicit
+     * timestamps older than the clearing are still masked by them. Use {@link #truncateTable(TableName)} directly
+     * if the test depends on that.
+     *
+     * @return the chosen strategy and how long it took
+     */
+    public ClearTableResult clearTable(TableName tableName) {
+        long t0 = System.nanoTime();
+        long sizeBytes = estimateTableSize(tableName);
+        ClearTableResult.Strategy strategy;
+        long deletedRows;
+
+        if (sizeBytes > clearTableThresholdBytes) {
+            strategy = ClearTableResult.Strategy.TRUNCATE;
+            truncateTable(tableName);
+            deletedRows = -1;
+        } else {
+            strategy = ClearTableResult.Strategy.DELETE;
+            deletedRows = deleteAllRows(tableName);
+        }
+
+        ClearTableResult result = new ClearTableResult(tableName, strategy, sizeBytes, deletedRows,
+                Duration.ofNanos(System.nanoTime() - t0));
+        LOGGER.info("cleared table: {}", result);
+        return result;
+    }
+
+    public ClearTableResult clearTable(String name) {
+        return clearTable(TableName.valueOf(name));
+    }
+
+    /**
+     * Approximate size in bytes of the store files and memstores of the table
+     * <p>
+     * The region servers report their metrics to the master periodically and in megabyte granularity, so the value
+     * lags behind recent writes and is 0 for tiny tables.
+     */
+    public long estimateTableSize(TableName tableName) {
+        return getAsAdmin(TableNotFoundException.class, 0L, admin -> {
+            long sizeBytes = 0;
+
+            for (ServerName server : admin.getRegionServers()) {
+                for (RegionMetrics metrics : admin.getRegionMetrics(server, tableName)) {
+                    sizeBytes += (long) metrics.getStoreFileSize().get(Size.Unit.BYTE);
+                    sizeBytes += (long) metrics.getMemStoreSize().get(Size.Unit.BYTE);
+                }
+            }
+
+            return sizeBytes;
+        });
+    }
+
+    private long deleteAllRows(TableName tableName) {
+        // only the row keys are needed, so skip all the other cells and values server-side
+        Scan scan = new Scan()
+                .setFilter(new FilterList(new FirstKeyOnlyFilter(), new KeyOnlyFilter()))
+                .setCaching(CLEAR_TABLE_BATCH_SIZE)
+                .setCacheBlocks(false);
+
+        return get(TableNotFoundException.class, 0L, connection -> {
+            long deletedRows = 0;
+            List<Delete> batch = new ArrayList<>(CLEAR_TABLE_BATCH_SIZE);
+
+            try (Table table = connection.getTable(tableName);
+                 ResultScanner scanner = table.getScanner(scan)) {
+                for (Result result : scanner) {
+                    batch.add(new Delete(result.getRow()));
+                    if (batch.size() >= CLEAR_TABLE_BATCH_SIZE) {
+                        deletedRows += batch.size();
+                        table.delete(batch);
+                        batch = new ArrayList<>(CLEAR_TABLE_BATCH_SIZE);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    deletedRows += batch.size();
+                    table.delete(batch);
+                }
+            }
+
+            return deletedRows;
+        });
+    }
+
     public void dropTable(TableName tableName) {
         runAsAdmin(admin -> admin.disableTable(tableName), TableNotEnabledException.class,
                 TableNotFoundException.class);
@@ -221,33 +779,234 @@ public class HBaseContainer extends GenericContainer<HBaseContainer> {
         dropTable(TableName.valueOf(name));
     }
 
+    /**
+     * Disables and deletes the table if it exists, without blocking
+     */
+    public CompletableFuture<Void> dropTableAsync(TableName tableName) {
+        return dropTableAsync(getAsyncAdmin(), tableName);
+    }
+
+    public CompletableFuture<Void> dropTableAsync(String name) {
+        return dropTableAsync(TableName.valueOf(name));
+    }
+
+    /**
+     * Drops all the user tables
+     */
     public void dropTables() {
-        TableName[] tableNames = getAsAdmin(null, admin -> admin.listTableNames());
-        for (TableName tableName : tableNames) {
-            dropTable(tableName);
+        dropTables(null, null);
+    }
+
+    /**
+     * Drops the user tables matching the filters, see {@link #dropTablesAsync(String, Pattern)}
+     *
+     * @return the dropped tables
+     */
+    public List<TableName> dropTables(String namespace, Pattern pattern) {
+        return HBaseContainerUtils.await(dropTablesAsync(namespace, pattern), timeoutNs);
+    }
+
+    /**
+     * Disables and deletes the user tables matching the filters concurrently
+     * <p>
+     * At most {@link #getAdminParallelism()} tables are dropped at a time. The future completes after the procedures
+     * for all the tables have completed.
+     *
+     * @param namespace only drop the tables in this namespace, or in all of them if null
+     * @param pattern   only drop the tables whose full name matches this regex, or all of them if null
+     * @return future with the dropped tables
+     */
+    public CompletableFuture<List<TableName>> dropTablesAsync(String namespace, Pattern pattern) {
+        AsyncAdmin admin = connectionHolder.getAsyncConnection().getAdmin();
+
+        return listUserTablesAsync(admin, namespace, pattern).thenCompose(matching -> {
+            LOGGER.info("dropping {} tables", matching.size());
+
+            return HBaseContainerUtils.forEachAsync(matching, adminParallelism, t -> dropTableAsync(admin, t))
+                    .thenApply(ignored -> matching);
+        });
+    }
+
+    /**
+     * Creates the namespace if it doesn't exist yet
+     *
+     * @param name namespace name, made of letters, digits and '_'
+     */
+    public HBaseNamespace createNamespace(String name) {
+        NamespaceDescriptor descriptor = NamespaceDescriptor.create(name).build();
+        runAsAdmin(NamespaceExistException.class, admin -> admin.createNamespace(descriptor));
+
+        return new HBaseNamespace(this, name);
+    }
+
+    /**
+     * Drops all the tables in the namespace and then the namespace itself, if it exists
+     *
+     * @return future that completes after the namespace is dropped
+     */
+    public CompletableFuture<Void> dropNamespaceAsync(String name) {
+        AsyncAdmin admin = connectionHolder.getAsyncConnection().getAdmin();
+        CompletableFuture<Void> dropping = dropTablesAsync(name, null)
+                .thenCompose(ignored -> admin.deleteNamespace(name));
+
+        return HBaseContainerUtils.ignoreFailures(dropping, NamespaceNotFoundException.class);
+    }
+
+    /**
+     * Snapshots all the user tables under the baseline name, see {@link #captureBaseline(String, String, Pattern)}
+     */
+    public BaselineResult captureBaseline(String name) {
+        return captureBaseline(name, null, null);
+    }
+
+    /**
+     * Snapshots the user tables matching the filters under the baseline name
+     * <p>
+     * A previous baseline with the same name is replaced. The tables are snapshotted concurrently, at most
+     * {@link #getAdminParallelism()} at a time.
+     *
+     * @param name      baseline name, made of letters, digits, '_' and '-'
+     * @param namespace only include the tables in this namespace, or in all of them if null
+     * @param pattern   only include the tables whose full name matches this regex, or all of them if null
+     * @return the tables in the baseline and how long it took
+     */
+    public BaselineResult captureBaseline(String name, String namespace, Pattern pattern) {
+        long t0 = System.nanoTime();
+        String prefix = baselineSnapshotPrefix(name);
+        AsyncAdmin admin = connectionHolder.getAsyncConnection().getAdmin();
+
+        CompletableFuture<List<TableName>> capturing = admin.deleteSnapshots(baselineSnapshotPattern(prefix))
+                .thenCompose(ignored -> listUserTablesAsync(admin, namespace, pattern))
+                .thenCompose(tableNames -> {
+                    return HBaseContainerUtils.forEachAsync(tableNames, adminParallelism, t -> {
+                        return admin.snapshot(prefix + t.getNamespaceAsString() + "." + t.getQualifierAsString(), t);
+                    }).thenApply(ignored -> tableNames);
+                });
+
+        List<TableName> tableNames = HBaseContainerUtils.await(capturing, timeoutNs);
+        BaselineResult result = new BaselineResult(name, tableNames, Duration.ofNanos(System.nanoTime() - t0));
+        LOGGER.info("captured baseline: {}", result);
+        return result;
+    }
+
+    /**
+     * Restores all the tables in the baseline to the state they had when it was captured
+     * <p>
+     * Restoring a snapshot only replaces the table's file links, so it's much faster than reloading the data. The
+     * tables are restored concurrently, at most {@link #getAdminParallelism()} at a time. Tables dropped since the
+     * capture are recreated, while tables created since then are left untouched.
+     *
+     * @return the restored tables and how long it took
+     * @throws IllegalArgumentException no baseline was captured with this name
+     */
+    public BaselineResult restoreBaseline(String name) {
+        long t0 = System.nanoTime();
+        String prefix = baselineSnapshotPrefix(name);
+        AsyncAdmin admin = connectionHolder.getAsyncConnection().getAdmin();
+
+        CompletableFuture<List<TableName>> restoring = admin.listSnapshots(baselineSnapshotPattern(prefix))
+                .thenCompose(snapshots -> {
+                    if (snapshots.isEmpty()) {
+                        throw new IllegalArgumentException("No baseline captured with the name " + name);
+                    }
+                    List<TableName> tableNames = snapshots.stream()
+                            .map(SnapshotDescription::getTableName)
+                            .collect(toList());
+
+                    return HBaseContainerUtils.forEachAsync(snapshots, adminParallelism, s -> {
+                        return restoreSnapshotAsync(admin, s);
+                    }).thenApply(ignored -> tableNames);
+                });
+
+        List<TableName> tableNames = HBaseContainerUtils.await(restoring, timeoutNs);
+        BaselineResult result = new BaselineResult(name, tableNames, Duration.ofNanos(System.nanoTime() - t0));
+        LOGGER.info("restored baseline: {}", result);
+        return result;
+    }
+
+    /**
+     * Deletes the snapshots of the baseline, if it exists
+     */
+    public void deleteBaseline(String name) {
+        AsyncAdmin admin = connectionHolder.getAsyncConnection().getAdmin();
+        String prefix = baselineSnapshotPrefix(name);
+
+        HBaseContainerUtils.await(admin.deleteSnapshots(baselineSnapshotPattern(prefix)), timeoutNs);
+    }
+
+    private static CompletableFuture<List<TableName>> listUserTablesAsync(AsyncAdmin admin, String namespace,
+            Pattern pattern) {
+        CompletableFuture<List<TableName>> listing;
+
+        if (namespace != null) {
+            listing = admin.listTableNamesByNamespace(namespace);
+        } else {
+            listing = admin.listTableNames(false);
         }
+
+        return listing.thenApply(tableNames -> {
+            return tableNames.stream()
+                    .filter(t -> !t.isSystemTable())
+                    .filter(t -> pattern == null || pattern.matcher(t.getNameAsString()).matches())
+                    .collect(toList());
+        });
+    }
+
+    private static CompletableFuture<Void> restoreSnapshotAsync(AsyncAdmin admin, SnapshotDescription snapshot) {
+        TableName tableName = snapshot.getTableName();
+        CompletableFuture<Void> disabling = HBaseContainerUtils.ignoreFailures(admin.disableTable(tableName),
+                TableNotEnabledException.class, TableNotFoundException.class);
+
+        // a dropped table is cloned from the snapshot and is already enabled after the restore
+        return disabling
+                .thenCompose(ignored -> admin.restoreSnapshot(snapshot.getName()))
+                .thenCompose(ignored -> {
+                    return HBaseContainerUtils.ignoreFailures(admin.enableTable(tableName),
+                            TableNotDisabledException.class);
+                });
+    }
+
+    private static String baselineSnapshotPrefix(String name) {
+        if (name == null || !BASELINE_NAME_PATTERN.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid baseline name: " + name);
+        }
+        return BASELINE_SNAPSHOT_PREFIX + name + ".";
+    }
+
+    private static Pattern baselineSnapshotPattern(String prefix) {
+        return Pattern.compile(Pattern.quote(prefix) + ".*");
+    }
+
+    private static CompletableFuture<Void> dropTableAsync(AsyncAdmin admin, TableName tableName) {
+        CompletableFuture<Void> disabling = HBaseContainerUtils.ignoreFailures(admin.disableTable(tableName),
+                TableNotEnabledException.class, TableNotFoundException.class);
+
+        return disabling.thenCompose(ignored -> {
+            return HBaseContainerUtils.ignoreFailures(admin.deleteTable(tableName), TableNotFoundException.class);
+        });
     }
 
     public <T> T get(Class<? extends Exception> ignoredException, T defaultValue,
             CheckedFunction<Connection, T> function) {
-        return HBaseContainerUtils.getWithRetry(ignoredException, defaultValue, timeoutNs, this::getConnection,
-                (connection, admin) -> {
+        return HBaseContainerUtils.getWithRetry(ignoredException, defaultValue, retryPolicy, retryStats,
+                connectionHolder, (connection, admin) -> {
                     return function.apply(connection);
                 });
     }
 
     public <T> T get(IOFunction<Connection, T> function) throws IOException {
-        try (Connection connection = getConnection()) {
-            return function.apply(connection);
+        try {
+            return function.apply(getConnection());
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
     }
 
     public void run(Class<? extends Exception> ignoredException, CheckedConsumer<Connection> consumer) {
-        HBaseContainerUtils.runWithRetry(ignoredException, timeoutNs, this::getConnection, (connection, admin) -> {
-            consumer.accept(connection);
-        });
+        HBaseContainerUtils.runWithRetry(ignoredException, retryPolicy, retryStats, connectionHolder,
+                (connection, admin) -> {
+                    consumer.accept(connection);
+                });
     }
 
     public void run(IOConsumer<Connection> consumer) throws IOException {
@@ -259,16 +1018,16 @@ public class HBaseContainer extends GenericContainer<HBaseContainer> {
 
     public <T> T getAsAdmin(Class<? extends Exception> ignoredException, T defaultValue,
             CheckedFunction<Admin, T> function) {
-        return HBaseContainerUtils.getWithRetry(ignoredException, defaultValue, timeoutNs, this::getConnection,
-                (connection, admin) -> {
+        return HBaseContainerUtils.getWithRetry(ignoredException, defaultValue, retryPolicy, retryStats,
+                connectionHolder, (connection, admin) -> {
                     return function.apply(admin);
                 });
     }
 
     public <T> T getAsAdmin(T defaultValue, CheckedFunction<Admin, T> function,
             Class<? extends Exception>... ignoredExceptions) {
-        return HBaseContainerUtils.getWithRetry(ignoredExceptions, defaultValue, timeoutNs, this::getConnection,
-                (connection, admin) -> {
+        return HBaseContainerUtils.getWithRetry(ignoredExceptions, defaultValue, retryPolicy, retryStats,
+                connectionHolder, (connection, admin) -> {
                     return function.apply(admin);
                 });
     }
@@ -287,6 +1046,93 @@ public class HBaseContainer extends GenericContainer<HBaseContainer> {
         }, ignoredExceptions);
     }
 
+    /**
+     * Whether HBase is reachable through the mapped ports, used by the wait strategy
+     * <p>
+     * The shared connection created here is kept, so the first helper call after the start doesn't pay for it.
+     */
+    private boolean isClientReady() {
+        loadConnectionProperties();
+        AsyncAdmin admin = connectionHolder.getAsyncConnection().getAdmin();
+        // listing the tables reads hbase:meta, so it also checks that the region server is reachable
+        HBaseContainerUtils.await(admin.listTableNames(false), CLIENT_CHECK_TIMEOUT.toNanos());
+        return true;
+    }
+
+    /**
+     * HBase configuration environment variables to make it listen on and advertise the given ports
+     */
+    private Map<String, String> buildPortsEnv(Map<String, Integer> ports) {
+        Map<String, String> portsEnv = new HashMap<>();
+        portsEnv.put(ENV_HOSTNAME_MASTER, hostname);
+        portsEnv.put(ENV_HOSTNAME_REGIONSERVER, hostname);
+
+        for (Map.Entry<String, Integer> entry : ports.entrySet()) {
+            portsEnv.put(entry.getKey(), Integer.toString(entry.getValue()));
+        }
+
+        portsEnv.put(ENV_MASTER, hostname + ":" + ports.get(ENV_PORT_MASTER));
+        portsEnv.put(ENV_QUORUM, hostname + ":" + ports.get(ENV_PORT_ZOOKEEPER));
+        return portsEnv;
+    }
+
+    private Instant recordPhase(String name) {
+        Instant completedAt = Instant.now();
+        clientPhases.add(new StartupTimeline.Phase(StartupTimeline.SOURCE_CLIENT, name, completedAt));
+        return completedAt;
+    }
+
+    private void recordWaitPhases() {
+        Instant waitStartedAt = hbaseWaitStrategy.getStartedAt();
+        if (waitStartedAt == null) {
+            return;
+        }
+        for (Map.Entry<String, Duration> entry : hbaseWaitStrategy.getPhaseTimings().entrySet()) {
+            Instant completedAt = waitStartedAt.plus(entry.getValue());
+            clientPhases.add(new StartupTimeline.Phase(StartupTimeline.SOURCE_CLIENT, "wait:" + entry.getKey(),
+                    completedAt));
+        }
+    }
+
+    /**
+     * Phases recorded in the container, or none if the image doesn't record them or $HBASE_TIMELINE_FILE is empty
+     */
+    private List<StartupTimeline.Phase> loadContainerPhases(InspectContainerResponse containerInfo) {
+        String[] containerEnv = containerInfo.getConfig() != null ? containerInfo.getConfig().getEnv() : null;
+        String timelineFile = HBaseContainerUtils.getEnvValue(containerEnv, ENV_TIMELINE_FILE);
+        if (timelineFile == null) {
+            timelineFile = CONTAINER_TIMELINE_FILE;
+        }
+        if (timelineFile.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        try {
+            return copyFileFromContainer(timelineFile, stream -> {
+                return StartupTimeline.parseContainerPhases(new String(stream.readAllBytes(), UTF_8));
+            });
+        } catch (RuntimeException e) {
+            LOGGER.warn("failed to read the startup timeline from {}", timelineFile, e);
+            return new ArrayList<>();
+        }
+    }
+
+    private void loadConnectionProperties() {
+        synchronized (connectionProperties) {
+            if (!connectionProperties.isEmpty()) {
+                return;
+            }
+            copyFileFromContainer("/etc/hbase/hbase-site.properties", stream -> {
+                connectionProperties.load(stream);
+                return null;
+            });
+        }
+    }
+
+    private static byte[][] toBytes(String[] values) {
+        return stream(values).map(s -> s.getBytes(UTF_8)).toArray(byte[][]::new);
+    }
+
     private static String asEnvContents(Map<String, String> env) {
         StringBuilder builder = new StringBuilder();
 
@@ -312,74 +1158,116 @@ public class HBaseContainer extends GenericContainer<HBaseContainer> {
     }
 
     @SuppressWarnings("resource")
-    public static class Builder {
-        private String image;
-        private Duration timeout;
-        private boolean debug;
+    public static class Builder extends AbstractHBaseBuilder<Builder> {
         private boolean reuse;
-        private Properties connectionProperties;
-        private DockerHostnameFunction hostnameFunction;
+        private RetryPolicy retryPolicy;
+        private int adminParallelism = DEFAULT_ADMIN_PARALLELISM;
+        private long clearTableThresholdBytes = DEFAULT_CLEAR_TABLE_THRESHOLD_BYTES;
+        private Duration waitPollInterval = HBaseWaitStrategy.DEFAULT_POLL_INTERVAL;
+        private PortMode portMode = PortMode.MAPPED;
+        private Profile[] profiles = {Profile.DEFAULT};
+        private long memoryLimitBytes = 0;
 
         public Builder() {
-            this(mergeProps(getHBase2DockerDefaultProps(), envToProps(System.getenv()), System.getProperties()));
+            this(getDefaultBuilderProps());
         }
 
         public Builder(Properties props) {
-            this.image = getProp(props, "hbase2-docker.image");
-            this.timeout = getProp(props, "hbase2-docker.timeout", Duration::parse);
-            this.debug = getProp(props, "hbase2-docker.debug", Boolean::parseBoolean);
+            super(props);
             this.reuse = getProp(props, "hbase2-docker.reuse", Boolean::parseBoolean);
-            this.connectionProperties = getProps(props, "hbase.site.");
 
-            String hostname = getProp(props, "hbase2-docker.hostname", false);
-            String hostnameMapper = getProp(props, "hbase2-docker.hostname-mapper", false);
+            String portMode = getProp(props, "hbase2-docker.port-mode", false);
+            if (portMode != null) {
+                this.portMode = PortMode.valueOf(portMode.toUpperCase(Locale.ROOT));
+            }
 
-            if (hostname != null) {
-                this.hostnameFunction = DockerHostnameFunctions.constant(hostname);
-            } else if (hostnameMapper != null) {
-                this.hostnameFunction = DockerHostnameFunctions.fromPropertySpec(hostnameMapper);
-            } else {
-                this.hostnameFunction = DockerHostnameFunctions.localhost();
+            String profiles = getProp(props, "hbase2-docker.profile", false);
+            if (profiles != null) {
+                this.profiles = stream(profiles.split(",")).map(Profile::fromEnvValue).toArray(Profile[]::new);
+            }
+
+            String memoryLimitMb = getProp(props, "hbase2-docker.memory-limit-mb", false);
+            if (memoryLimitMb != null) {
+                this.memoryLimitBytes = Long.parseLong(memoryLimitMb) * 1024 * 1024;
             }
         }
 
-        public Builder image(String image) {
-            this.image = image;
+        public Builder reuse(boolean reuse) {
+            this.reuse = reuse;
             return this;
         }
 
-        public Builder timeout(Duration timeout) {
-            this.timeout = timeout;
+        /**
+         * Policy used by the helper methods to retry failed calls
+         * <p>
+         * Defaults to an exponential backoff bounded by the timeout
+         */
+        public Builder retryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
             return this;
         }
 
-        public Builder properties(Properties props) {
-            this.connectionProperties = (Properties) props.clone();
+        /**
+         * Maximum number of concurrent admin procedures in bulk operations
+         */
+        public Builder adminParallelism(int adminParallelism) {
+            this.adminParallelism = adminParallelism;
             return this;
         }
 
-        public Builder debug(boolean debug) {
-            this.debug = debug;
+        /**
+         * Estimated table size above which {@code clearTable()} truncates the table instead of deleting its rows
+         */
+        public Builder clearTableThreshold(long clearTableThresholdBytes) {
+            this.clearTableThresholdBytes = clearTableThresholdBytes;
             return this;
         }
 
-        public Builder reuse(boolean reuse) {
-            this.reuse = reuse;
+        /**
+         * Delay between the client-side checks made while waiting for the container to start
+         */
+        public Builder waitPollInterval(Duration waitPollInterval) {
+            this.waitPollInterval = waitPollInterval;
             return this;
         }
 
-        public Builder hostname(String hostname) {
-            this.hostnameFunction = DockerHostnameFunctions.constant(hostname);
+        /**
+         * How the HBase ports are exposed to the host, defaults to {@link PortMode#MAPPED}
+         */
+        public Builder portMode(PortMode portMode) {
+            this.portMode = portMode;
             return this;
         }
 
-        public Builder hostname(DockerHostnameFunction hostnameFunction) {
-            this.hostnameFunction = hostnameFunction;
+        /**
+         * Presets of HBase settings applied by the image, defaults to {@link Profile#DEFAULT}
+         */
+        public Builder profile(Profile... profiles) {
+            this.profiles = profiles.clone();
+            return this;
+        }
+
+        /**
+         * Memory limit of the container in bytes, defaults to no limit
+         */
+        public Builder memoryLimit(long memoryLimitBytes) {
+            this.memoryLimitBytes = memoryLimitBytes;
             return this;
         }
 
         public HBaseContainer build() {
-            return new HBaseContainer(image, timeout, debug, hostnameFunction, connectionProperties).withReuse(reuse);
+            HBaseContainer container = new HBaseContainer(image, timeout, debug, hostnameFunction,
+                    connectionProperties);
+            if (retryPolicy != null) {
+                container.withRetryPolicy(retryPolicy);
+            }
+            container.withAdminParallelism(adminParallelism);
+            container.withClearTableThreshold(clearTableThresholdBytes);
+            container.withWaitPollInterval(waitPollInterval);
+            container.withPortMode(portMode);
+            container.withProfile(profiles);
+            container.withMemoryLimit(memoryLimitBytes);
+            return container.withReuse(reuse);
         }
     }
 
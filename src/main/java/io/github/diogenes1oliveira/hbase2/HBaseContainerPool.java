@@ -0,0 +1,412 @@
+package io.github.diogenes1oliveira.hbase2;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Fixed-size pool of warm HBase containers, leased exclusively to one caller at a time
+ * <p>
+ * All the containers are started in parallel on {@link #start()} or on the first {@link #acquire()}. A released
+ * container is reset in the background before being leased again, and idle containers are periodically checked and
+ * replaced if they stop responding.
+ */
+@SuppressWarnings({ "resource" })
+public class HBaseContainerPool implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HBaseContainerPool.class);
+
+    public static final int DEFAULT_SIZE = 2;
+    public static final Duration DEFAULT_ACQUIRE_TIMEOUT = Duration.ofMinutes(5);
+    public static final Duration DEFAULT_HEALTH_CHECK_INTERVAL = Duration.ofSeconds(30);
+    public static final Duration DEFAULT_HEALTH_CHECK_TIMEOUT = Duration.ofSeconds(10);
+
+    private final int size;
+    private final Supplier<HBaseContainer> factory;
+    private final Consumer<HBaseContainer> reset;
+    private final long acquireTimeoutNs;
+    private final Duration healthCheckInterval;
+    private final long healthCheckTimeoutNs;
+
+    private final BlockingQueue<HBaseContainer> idle = new LinkedBlockingQueue<>();
+    private final Map<HBaseContainer, Long> leases = new ConcurrentHashMap<>();
+    private final Set<HBaseContainer> containers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger slots = new AtomicInteger();
+    private final ExecutorService executor;
+    private final ScheduledExecutorService scheduler;
+
+    private final TimingStats startStats = new TimingStats();
+    private final TimingStats waitStats = new TimingStats();
+    private final TimingStats leaseStats = new TimingStats();
+    private final TimingStats resetStats = new TimingStats();
+    private final LongAdder replacements = new LongAdder();
+
+    private volatile boolean started = false;
+    private volatile boolean closed = false;
+
+    public HBaseContainerPool(int size, Supplier<HBaseContainer> factory, Consumer<HBaseContainer> reset,
+            Duration acquireTimeout, Duration healthCheckInterval, Duration healthCheckTimeout) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be positive: " + size);
+        }
+        this.size = size;
+        this.factory = factory;
+        this.reset = reset;
+        this.acquireTimeoutNs = acquireTimeout.toNanos();
+        this.healthCheckInterval = healthCheckInterval;
+        this.healthCheckTimeoutNs = healthCheckTimeout.toNanos();
+        this.executor = Executors.newFixedThreadPool(size, daemonThreads("hbase-pool-worker-"));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("hbase-pool-health-"));
+    }
+
+    /**
+     * Starts all the containers in parallel and waits for them to be ready
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        ensureNotClosed();
+        started = true;
+
+        List<CompletableFuture<Void>> starting = new ArrayList<>();
+        while (reserveSlot()) {
+            starting.add(CompletableFuture.runAsync(this::startNewContainer, executor));
+        }
+
+        // scheduled before waiting, so the health check also retries the containers that fail to start
+        long intervalMs = healthCheckInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::checkHealth, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+
+        CompletableFuture<Void> all = CompletableFuture.allOf(starting.toArray(new CompletableFuture[0]));
+        HBaseContainerUtils.await(all, Long.MAX_VALUE);
+        LOGGER.info("started pool of {} containers: {}", size, startStats);
+    }
+
+    /**
+     * Leases an idle container, waiting for one to be released if needed
+     * <p>
+     * The container must be given back with {@link #release(HBaseContainer)} and must not be stopped by the caller.
+     *
+     * @throws RuntimeException no container was released within the acquire timeout
+     */
+    public HBaseContainer acquire() {
+        start();
+        ensureNotClosed();
+        long t0 = System.nanoTime();
+        HBaseContainer container;
+
+        try {
+            container = idle.poll(acquireTimeoutNs, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            LOGGER.warn("interrupted while waiting", e);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting", e);
+        }
+
+        long now = System.nanoTime();
+        waitStats.record(now - t0);
+        if (container == null) {
+            throw new RuntimeException("Timeout exceeded while waiting for an idle container");
+        }
+
+        leases.put(container, now);
+        return container;
+    }
+
+    /**
+     * Gives the container back to the pool, which resets it in the background before leasing it again
+     *
+     * @throws IllegalArgumentException the container isn't currently leased from this pool
+     */
+    public void release(HBaseContainer container) {
+        Long leasedAt = leases.remove(container);
+        if (leasedAt == null) {
+            throw new IllegalArgumentException("Container is not leased from this pool: " + container.getContainerId());
+        }
+        leaseStats.record(System.nanoTime() - leasedAt);
+
+        if (closed) {
+            stopQuietly(container);
+        } else {
+            executor.execute(() -> resetAndReturn(container));
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getLeasedCount() {
+        return leases.size();
+    }
+
+    /**
+     * Time taken to start each container, including the replacements
+     */
+    public TimingStats getStartStats() {
+        return startStats;
+    }
+
+    /**
+     * Time spent in {@link #acquire()} waiting for an idle container
+     */
+    public TimingStats getWaitStats() {
+        return waitStats;
+    }
+
+    /**
+     * Time between {@link #acquire()} and {@link #release(HBaseContainer)}
+     */
+    public TimingStats getLeaseStats() {
+        return leaseStats;
+    }
+
+    /**
+     * Time taken to reset each released container
+     */
+    public TimingStats getResetStats() {
+        return resetStats;
+    }
+
+    /**
+     * Number of containers replaced after failing the reset or the health check
+     */
+    public long getReplacements() {
+        return replacements.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "HBaseContainerPool{size=%d, idle=%d, leased=%d, replacements=%d, wait=%s, lease=%s, reset=%s}",
+                size, getIdleCount(), getLeasedCount(), getReplacements(), waitStats, leaseStats, resetStats);
+    }
+
+    /**
+     * Stops all the containers, including the leased ones
+     */
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdownNow();
+        executor.shutdown();
+
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOGGER.warn("timed out waiting for the pool workers to finish");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            LOGGER.warn("interrupted while waiting", e);
+            Thread.currentThread().interrupt();
+        }
+
+        containers.parallelStream().forEach(HBaseContainerPool::stopQuietly);
+        containers.clear();
+        idle.clear();
+        LOGGER.info("closed {}", this);
+    }
+
+    private void startNewContainer() {
+        HBaseContainer container = factory.get().withReuse(false);
+        containers.add(container);
+        long t0 = System.nanoTime();
+
+        try {
+            container.start();
+        } catch (RuntimeException e) {
+            containers.remove(container);
+            slots.decrementAndGet();
+            stopQuietly(container);
+            throw e;
+        }
+
+        startStats.record(System.nanoTime() - t0);
+        idle.offer(container);
+    }
+
+    private void resetAndReturn(HBaseContainer container) {
+        long t0 = System.nanoTime();
+
+        try {
+            reset.accept(container);
+        } catch (RuntimeException e) {
+            LOGGER.warn("failed to reset container {}, replacing it", container.getContainerId(), e);
+            replace(container);
+            return;
+        }
+
+        resetStats.record(System.nanoTime() - t0);
+        idle.offer(container);
+    }
+
+    private void checkHealth() {
+        for (HBaseContainer container : new ArrayList<>(idle)) {
+            // skip the containers leased in the meantime
+            if (!idle.remove(container)) {
+                continue;
+            }
+            if (isHealthy(container)) {
+                idle.offer(container);
+            } else {
+                LOGGER.warn("container {} failed the health check, replacing it", container.getContainerId());
+                executor.execute(() -> replace(container));
+            }
+        }
+
+        // top up the slots left empty by replacements that failed to start
+        while (!closed && reserveSlot()) {
+            executor.execute(this::startNewContainerQuietly);
+        }
+    }
+
+    private boolean isHealthy(HBaseContainer container) {
+        if (!container.isRunning()) {
+            return false;
+        }
+
+        try {
+            HBaseContainerUtils.await(container.getAsyncConnection().getAdmin().listTableNames(false),
+                    healthCheckTimeoutNs);
+            return true;
+        } catch (RuntimeException e) {
+            LOGGER.debug("health check failed for container {}", container.getContainerId(), e);
+            return false;
+        }
+    }
+
+    private void replace(HBaseContainer container) {
+        replacements.increment();
+        containers.remove(container);
+        slots.decrementAndGet();
+        stopQuietly(container);
+
+        if (!closed && reserveSlot()) {
+            startNewContainerQuietly();
+        }
+    }
+
+    private void startNewContainerQuietly() {
+        try {
+            startNewContainer();
+        } catch (RuntimeException e) {
+            LOGGER.error("failed to start a new container for the pool", e);
+        }
+    }
+
+    private boolean reserveSlot() {
+        int current;
+        do {
+            current = slots.get();
+            if (current >= size) {
+                return false;
+            }
+        } while (!slots.compareAndSet(current, current + 1));
+
+        return true;
+    }
+
+    private void ensureNotClosed() {
+        if (closed) {
+            throw new IllegalStateException("Pool is already closed");
+        }
+    }
+
+    private static void stopQuietly(HBaseContainer container) {
+        try {
+            container.stop();
+        } catch (RuntimeException e) {
+            LOGGER.warn("failed to stop container", e);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private int size = DEFAULT_SIZE;
+        private Supplier<HBaseContainer> factory = () -> HBaseContainer.newBuilder().build();
+        private Consumer<HBaseContainer> reset = HBaseContainer::dropTables;
+        private Duration acquireTimeout = DEFAULT_ACQUIRE_TIMEOUT;
+        private Duration healthCheckInterval = DEFAULT_HEALTH_CHECK_INTERVAL;
+        private Duration healthCheckTimeout = DEFAULT_HEALTH_CHECK_TIMEOUT;
+
+        public Builder size(int size) {
+            this.size = size;
+            return this;
+        }
+
+        /**
+         * Builds each container from the builder, with reuse disabled
+         */
+        public Builder containers(HBaseContainer.Builder builder) {
+            this.factory = builder::build;
+            return this;
+        }
+
+        public Builder containers(Supplier<HBaseContainer> factory) {
+            this.factory = factory;
+            return this;
+        }
+
+        /**
+         * Action to run on each released container, defaults to dropping all the user tables
+         */
+        public Builder reset(Consumer<HBaseContainer> reset) {
+            this.reset = reset;
+            return this;
+        }
+
+        public Builder acquireTimeout(Duration acquireTimeout) {
+            this.acquireTimeout = acquireTimeout;
+            return this;
+        }
+
+        public Builder healthCheckInterval(Duration healthCheckInterval) {
+            this.healthCheckInterval = healthCheckInterval;
+            return this;
+        }
+
+        public Builder healthCheckTimeout(Duration healthCheckTimeout) {
+            this.healthCheckTimeout = healthCheckTimeout;
+            return this;
+        }
+
+        public HBaseContainerPool build() {
+            return new HBaseContainerPool(size, factory, reset, acquireTimeout, healthCheckInterval,
+                    healthCheckTimeout);
+        }
+    }
+}
@@ -3,10 +3,34 @@ package io.github.diogenes1oliveira.hbase2;
 import io.github.diogenes1oliveira.hbase2.interfaces.CheckedBiConsumer;
 import io.github.diogenes1oliveira.hbase2.interfaces.CheckedBiFunction;
 import io.github.diogenes1oliveira.hbase2.interfaces.CheckedSupplier;
+import io.github.diogenes1oliveira.hbase2.interfaces.RetryPolicy;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.hadoop.hbase.client.Admin;
 import org.apache.hadoop.hbase.client.Connection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.testcontainers.containers.GenericContainer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import static io.github.diogenes1oliveira.hbase2.PropertyUtils.propToEnv;
 
 public class HBaseContainerUtils {
     private static final Logger LOGGER = LoggerFactory.getLogger(HBaseContainerUtils.class);
@@ -57,36 +81,354 @@ public class HBaseContainerUtils {
                                      long timeoutNs,
                                      CheckedSupplier<Connection> connectionSupplier,
                                      CheckedBiFunction<Connection, Admin, T> function) {
+        RetryPolicy policy = RetryPolicies.exponentialBackoff(Duration.ofNanos(timeoutNs));
+        return retry(ignoredExceptions, defaultValue, policy, null, () -> {
+            try (Connection connection = connectionSupplier.get();
+                 Admin admin = connection.getAdmin()) {
+                return function.apply(connection, admin);
+            }
+        });
+    }
+
+    /**
+     * Same as {@link #getWithRetry(Class[], Object, long, CheckedSupplier, CheckedBiFunction)}, but reusing the
+     * shared connection and admin across attempts instead of opening new ones
+     * <p>
+     * The holder only rebuilds the connection if it's actually broken (closed or aborted).
+     */
+    @SuppressWarnings({"UnusedReturnValue"})
+    public static <T> T getWithRetry(Class<? extends Exception>[] ignoredExceptions,
+                                     T defaultValue,
+                                     RetryPolicy policy,
+                                     RetryStats stats,
+                                     HBaseConnectionHolder connectionHolder,
+                                     CheckedBiFunction<Connection, Admin, T> function) {
+        return retry(ignoredExceptions, defaultValue, policy, stats, () -> {
+            return function.apply(connectionHolder.getConnection(), connectionHolder.getAdmin());
+        });
+    }
+
+    @SuppressWarnings({"UnusedReturnValue", "unchecked"})
+    public static <T> T getWithRetry(Class<? extends Exception> ignoredException,
+                                     T defaultValue,
+                                     RetryPolicy policy,
+                                     RetryStats stats,
+                                     HBaseConnectionHolder connectionHolder,
+                                     CheckedBiFunction<Connection, Admin, T> function) {
+        Class<? extends Exception>[] ignoredExceptions = new Class[]{ignoredException};
+        return getWithRetry(ignoredExceptions, defaultValue, policy, stats, connectionHolder, function);
+    }
+
+    @SuppressWarnings({"UnusedReturnValue"})
+    public static void runWithRetry(Class<? extends Exception>[] ignoredExceptions,
+                                    RetryPolicy policy,
+                                    RetryStats stats,
+                                    HBaseConnectionHolder connectionHolder,
+                                    CheckedBiConsumer<Connection, Admin> consumer) {
+        getWithRetry(ignoredExceptions, null, policy, stats, connectionHolder, ((connection, admin) -> {
+            consumer.accept(connection, admin);
+            return null;
+        }));
+    }
+
+    @SuppressWarnings({"UnusedReturnValue", "unchecked"})
+    public static void runWithRetry(Class<? extends Exception> ignoredException,
+                                    RetryPolicy policy,
+                                    RetryStats stats,
+                                    HBaseConnectionHolder connectionHolder,
+                                    CheckedBiConsumer<Connection, Admin> consumer) {
+        Class<? extends Exception>[] ignoredExceptions = new Class[]{ignoredException};
+        runWithRetry(ignoredExceptions, policy, stats, connectionHolder, consumer);
+    }
+
+    /**
+     * Calls the function until it succeeds, fails with an ignored exception or the policy gives up
+     *
+     * @param ignoredExceptions exceptions that make the call return the default value
+     * @param defaultValue      value to return if an ignored exception is thrown
+     * @param policy            decides which failures are retried and the delays between attempts
+     * @param stats             counters to record the call into, may be null
+     * @param attempt           function to be called in each attempt
+     */
+    public static <T> T retry(Class<? extends Exception>[] ignoredExceptions,
+                              T defaultValue,
+                              RetryPolicy policy,
+                              RetryStats stats,
+                              CheckedSupplier<T> attempt) {
         long t0 = System.nanoTime();
+        int attempts = 0;
 
-        while (true) {
-            try {
-                try (Connection connection = connectionSupplier.get();
-                     Admin admin = connection.getAdmin()) {
-                    try {
-                        return function.apply(connection, admin);
-                    } catch (Exception e) {
-                        for (Class<? extends Exception> ignoredException : ignoredExceptions) {
-                            if (ignoredException.isAssignableFrom(e.getClass())) {
-                                LOGGER.info("Caught ignored exception {}, returning default value {}", ignoredException.getName(), defaultValue);
-                                return defaultValue;
-                            }
+        try {
+            while (true) {
+                ++attempts;
+                long delayNs;
+
+                try {
+                    return attempt.get();
+                } catch (InterruptedException e) {
+                    LOGGER.warn("interrupted", e);
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("interrupted", e);
+                } catch (Exception e) {
+                    for (Class<? extends Exception> ignoredException : ignoredExceptions) {
+                        if (ignoredException != null && ignoredException.isAssignableFrom(e.getClass())) {
+                            LOGGER.info("Caught ignored exception {}, returning default value {}", ignoredException.getName(), defaultValue);
+                            return defaultValue;
                         }
-                        throw e;
                     }
+
+                    if (!policy.isRetriable(e)) {
+                        throw asUnchecked(e);
+                    }
+                    delayNs = policy.nextDelayNs(attempts, System.nanoTime() - t0);
+                    if (delayNs < 0) {
+                        throw new RuntimeException("Timeout exceeded after " + attempts + " attempts", e);
+                    }
+                    LOGGER.warn("attempt {} failed with {}, will retry again in {}ms", attempts, e, delayNs / 1_000_000);
+                    LOGGER.debug("attempt {} failure", attempts, e);
+                }
+
+                uncheckedSleep(delayNs / 1_000_000, (int) (delayNs % 1_000_000));
+            }
+        } finally {
+            long elapsedNs = System.nanoTime() - t0;
+            if (stats != null) {
+                stats.record(attempts, elapsedNs);
+            }
+            if (attempts > 1) {
+                LOGGER.info("call finished after {} attempts in {}ms", attempts, elapsedNs / 1_000_000);
+            }
+        }
+    }
+
+    /**
+     * Waits for the future to complete, rethrowing its failure unchecked
+     *
+     * @param future    future to wait for
+     * @param timeoutNs maximum time to wait
+     */
+    public static <T> T await(CompletableFuture<T> future, long timeoutNs) {
+        try {
+            return future.get(timeoutNs, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            LOGGER.warn("interrupted while waiting", e);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting", e);
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Timeout exceeded", e);
+        } catch (ExecutionException e) {
+            Throwable cause = unwrapCompletion(e);
+            if (cause instanceof Exception) {
+                throw asUnchecked((Exception) cause);
+            }
+            throw (Error) cause;
+        }
+    }
+
+    /**
+     * Client configuration with the properties set over the HBase defaults
+     */
+    public static Configuration buildConfiguration(Properties props) {
+        Configuration conf = HBaseConfiguration.create();
+
+        for (String name : props.stringPropertyNames()) {
+            conf.set(name, props.getProperty(name));
+        }
+
+        return conf;
+    }
+
+    /**
+     * Sets the properties in the hbase-site.xml of the container via $HBASE_SITE_* variables, and makes the hostname
+     * HBase advertises resolve to the container itself
+     */
+    public static void configureSite(GenericContainer<?> container, String hostname, Properties siteProps) {
+        if (!"localhost".equals(hostname)) {
+            container.withExtraHost(hostname, "127.0.0.1");
+        }
+
+        for (String propName : siteProps.stringPropertyNames()) {
+            container.withEnv("HBASE_SITE_" + propToEnv(propName), siteProps.getProperty(propName));
+        }
+    }
+
+    /**
+     * Value of a variable in a Docker environment list of NAME=VALUE entries, or null if it isn't set
+     * <p>
+     * The last entry wins, as in Docker itself.
+     */
+    public static String getEnvValue(String[] env, String name) {
+        String value = null;
+
+        if (env != null) {
+            for (String entry : env) {
+                int equals = entry.indexOf('=');
+                String entryName = equals < 0 ? entry : entry.substring(0, equals);
+                if (entryName.equals(name)) {
+                    value = equals < 0 ? "" : entry.substring(equals + 1);
                 }
-            } catch (InterruptedException e) {
-                LOGGER.warn("interrupted", e);
-                Thread.currentThread().interrupt();
-                throw new RuntimeException("interrupted", e);
-            } catch (Exception e) {
-                if (System.nanoTime() - t0 > timeoutNs) {
-                    throw new RuntimeException("Timeout exceeded", e);
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Finds distinct ports that are free on the local host
+     * <p>
+     * The ports are released before returning, so another process might take them before they're bound again.
+     *
+     * @param count number of ports to find
+     */
+    public static List<Integer> findFreePorts(int count) {
+        List<ServerSocket> sockets = new ArrayList<>();
+        List<Integer> ports = new ArrayList<>();
+
+        try {
+            // keeping all the sockets open until the end guarantees the ports are distinct
+            for (int i = 0; i < count; ++i) {
+                ServerSocket socket = new ServerSocket(0);
+                sockets.add(socket);
+                ports.add(socket.getLocalPort());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to find free ports", e);
+        } finally {
+            for (ServerSocket socket : sockets) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    LOGGER.warn("failed to release port {}", socket.getLocalPort(), e);
+                }
+            }
+        }
+
+        return ports;
+    }
+
+    /**
+     * Applies the asynchronous function to all items, with at most {@code parallelism} calls in flight
+     * <p>
+     * A failed call doesn't stop the other ones. The returned future completes after all the calls have completed,
+     * failing with the first failure if any.
+     */
+    public static <T> CompletableFuture<Void> forEachAsync(Collection<T> items,
+                                                           int parallelism,
+                                                           Function<T, CompletableFuture<?>> function) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+
+        Queue<T> queue = new ConcurrentLinkedQueue<>(items);
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        CompletableFuture<?>[] workers = new CompletableFuture[Math.min(parallelism, items.size())];
+
+        for (int i = 0; i < workers.length; ++i) {
+            CompletableFuture<Void> worker = new CompletableFuture<>();
+            workers[i] = worker;
+            runNextAsync(queue, failures, function, worker);
+        }
+
+        return CompletableFuture.allOf(workers).thenRun(() -> {
+            if (!failures.isEmpty()) {
+                Throwable first = failures.get(0);
+                for (Throwable other : failures.subList(1, failures.size())) {
+                    first.addSuppressed(other);
                 }
-                LOGGER.warn("failure, will retry again in 1s", e);
+                throw new CompletionException(first);
             }
+        });
+    }
+
+    /**
+     * Makes the future complete with null instead of failing with one of the ignored exceptions
+     */
+    @SafeVarargs
+    public static <T> CompletableFuture<T> ignoreFailures(CompletableFuture<T> future,
+                                                          Class<? extends Throwable>... ignoredExceptions) {
+        return future.handle((value, e) -> {
+            if (e == null) {
+                return value;
+            }
+            Throwable cause = unwrapCompletion(e);
+            for (Class<? extends Throwable> ignoredException : ignoredExceptions) {
+                if (ignoredException.isInstance(cause)) {
+                    LOGGER.info("Caught ignored exception {}", ignoredException.getName());
+                    return null;
+                }
+            }
+            throw new CompletionException(cause);
+        });
+    }
+
+    /**
+     * Strips the {@link CompletionException} and {@link ExecutionException} wrappers of an asynchronous failure
+     */
+    public static Throwable unwrapCompletion(Throwable e) {
+        Throwable cause = e;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * Calls the function on the queued items one at a time, completing the worker once the queue is empty
+     * <p>
+     * Calls that are already complete are looped over instead of chained, so the stack doesn't grow with the number
+     * of items.
+     */
+    private static <T> void runNextAsync(Queue<T> queue,
+                                         List<Throwable> failures,
+                                         Function<T, CompletableFuture<?>> function,
+                                         CompletableFuture<Void> worker) {
+        T item;
+
+        while ((item = queue.poll()) != null) {
+            CompletableFuture<?> future;
+            try {
+                future = function.apply(item);
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+
+            if (!future.isDone()) {
+                future.whenComplete((value, e) -> {
+                    addFailure(failures, e);
+                    runNextAsync(queue, failures, function, worker);
+                });
+                return;
+            }
+            future.whenComplete((value, e) -> addFailure(failures, e));
+        }
+
+        worker.complete(null);
+    }
+
+    private static void addFailure(List<Throwable> failures, Throwable e) {
+        if (e != null) {
+            failures.add(unwrapCompletion(e));
+        }
+    }
+
+    private static void uncheckedSleep(long ms, int nanos) {
+        try {
+            Thread.sleep(ms, nanos);
+        } catch (InterruptedException e) {
+            LOGGER.warn("interrupted while waiting", e);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting", e);
+        }
+    }
 
-            uncheckedSleep(1000);
+    private static RuntimeException asUnchecked(Exception e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        } else if (e instanceof IOException) {
+            return new UncheckedIOException((IOException) e);
+        } else {
+            return new RuntimeException(e);
         }
     }
 
@@ -0,0 +1,82 @@
+package io.github.diogenes1oliveira.hbase2;
+
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Connection;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.stream;
+
+/**
+ * HBase namespace within the container, resolving table names into it
+ * <p>
+ * Tests that only touch tables in their own namespace don't interfere with each other, so they can share a single
+ * container concurrently.
+ */
+public class HBaseNamespace {
+    private final HBaseContainer container;
+    private final String name;
+
+    public HBaseNamespace(HBaseContainer container, String name) {
+        this.container = container;
+        this.name = name;
+    }
+
+    /**
+     * Unique namespace name, prefixed by the hint with any illegal characters replaced by '_'
+     */
+    public static String generateName(String hint) {
+        String suffix = UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+        if (hint == null || hint.isEmpty()) {
+            return "ns_" + suffix;
+        }
+        return hint.replaceAll("[^a-zA-Z0-9_]", "_") + "_" + suffix;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public HBaseContainer getContainer() {
+        return container;
+    }
+
+    /**
+     * Shared connection to the container, see {@link HBaseContainer#getConnection()}
+     */
+    public Connection getConnection() {
+        return container.getConnection();
+    }
+
+    /**
+     * Fully qualified name of the table within this namespace
+     */
+    public TableName tableName(String qualifier) {
+        return TableName.valueOf(name, qualifier);
+    }
+
+    /**
+     * Creates the table within this namespace, see {@link HBaseContainer#createTable(TableName, byte[], byte[]...)}
+     */
+    public TableName createTable(String qualifier, String family, String... splits) {
+        TableName tableName = tableName(qualifier);
+        byte[][] bytesSplits = stream(splits).map(s -> s.getBytes(UTF_8)).toArray(byte[][]::new);
+
+        container.createTable(tableName, family.getBytes(UTF_8), bytesSplits);
+        return tableName;
+    }
+
+    /**
+     * Drops all the tables in this namespace and the namespace itself
+     */
+    public CompletableFuture<Void> dropAsync() {
+        return container.dropNamespaceAsync(name);
+    }
+
+    @Override
+    public String toString() {
+        return "HBaseNamespace{" + name + "}";
+    }
+}
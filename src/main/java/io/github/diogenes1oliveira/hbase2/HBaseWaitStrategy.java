@@ -0,0 +1,159 @@
+package io.github.diogenes1oliveira.hbase2;
+
+import com.github.dockerjava.api.command.LogContainerCmd;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.ContainerLaunchException;
+import org.testcontainers.containers.output.FrameConsumerResultCallback;
+import org.testcontainers.containers.output.OutputFrame;
+import org.testcontainers.containers.output.WaitingConsumer;
+import org.testcontainers.containers.wait.strategy.AbstractWaitStrategy;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Waits for HBase to start by following the container logs and then checking it once from the client side
+ * <p>
+ * The first phase watches the master logs for it becoming active and completing its initialization, which only
+ * happens after hbase:meta and hbase:namespace are online. The second phase confirms that HBase is reachable through
+ * the mapped ports, polling the client check until it succeeds. Neither phase runs any command inside the container.
+ */
+public class HBaseWaitStrategy extends AbstractWaitStrategy {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HBaseWaitStrategy.class);
+
+    public static final Pattern MASTER_ACTIVE_PATTERN = Pattern.compile(".*Registered as active master.*",
+            Pattern.DOTALL);
+    public static final Pattern MASTER_INITIALIZED_PATTERN = Pattern.compile(".*Master has completed initialization.*",
+            Pattern.DOTALL);
+    public static final Duration DEFAULT_POLL_INTERVAL = Duration.ofMillis(250);
+
+    public static final String PHASE_MASTER_ACTIVE = "master-active";
+    public static final String PHASE_MASTER_INITIALIZED = "master-initialized";
+    public static final String PHASE_CLIENT_READY = "client-ready";
+
+    private final BooleanSupplier clientCheck;
+    private Duration pollInterval = DEFAULT_POLL_INTERVAL;
+    private volatile Map<String, Duration> phaseTimings = Collections.emptyMap();
+    private volatile Instant startedAt;
+
+    /**
+     * @param clientCheck returns true once a client can reach HBase within the container, called after the master
+     *                    completes its initialization
+     */
+    public HBaseWaitStrategy(BooleanSupplier clientCheck) {
+        this.clientCheck = clientCheck;
+    }
+
+    /**
+     * Sets the delay between calls to the client check
+     */
+    public HBaseWaitStrategy withPollInterval(Duration pollInterval) {
+        this.pollInterval = pollInterval;
+        return this;
+    }
+
+    public Duration getPollInterval() {
+        return pollInterval;
+    }
+
+    /**
+     * Time elapsed since the start of the wait until each phase completed, in order
+     * <p>
+     * Only contains the phases completed in the last wait.
+     */
+    public Map<String, Duration> getPhaseTimings() {
+        return phaseTimings;
+    }
+
+    /**
+     * Instant the last wait started, or null if it never ran
+     */
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    @Override
+    protected void waitUntilReady() {
+        startedAt = Instant.now();
+        long t0 = System.nanoTime();
+        long deadlineNs = t0 + startupTimeout.toNanos();
+        Map<String, Duration> timings = new LinkedHashMap<>();
+        phaseTimings = Collections.unmodifiableMap(timings);
+
+        try {
+            waitForLogs(t0, deadlineNs, timings);
+            waitForClient(t0, deadlineNs, timings);
+        } finally {
+            LOGGER.info("HBase startup phases: {}", timings);
+        }
+    }
+
+    private void waitForLogs(long t0, long deadlineNs, Map<String, Duration> timings) {
+        WaitingConsumer waitingConsumer = new WaitingConsumer();
+        LogContainerCmd cmd = DockerClientFactory.lazyClient()
+                .logContainerCmd(waitStrategyTarget.getContainerId())
+                .withFollowStream(true)
+                .withSince(0)
+                .withStdOut(true)
+                .withStdErr(true);
+
+        try (FrameConsumerResultCallback callback = new FrameConsumerResultCallback()) {
+            callback.addConsumer(OutputFrame.OutputType.STDOUT, waitingConsumer);
+            callback.addConsumer(OutputFrame.OutputType.STDERR, waitingConsumer);
+            cmd.exec(callback);
+
+            waitingConsumer.waitUntil(frame -> {
+                String line = frame.getUtf8String();
+                if (!timings.containsKey(PHASE_MASTER_ACTIVE) && MASTER_ACTIVE_PATTERN.matcher(line).matches()) {
+                    timings.put(PHASE_MASTER_ACTIVE, Duration.ofNanos(System.nanoTime() - t0));
+                }
+                if (MASTER_INITIALIZED_PATTERN.matcher(line).matches()) {
+                    timings.put(PHASE_MASTER_INITIALIZED, Duration.ofNanos(System.nanoTime() - t0));
+                    return true;
+                }
+                return false;
+            }, deadlineNs - System.nanoTime(), TimeUnit.NANOSECONDS, 1);
+        } catch (TimeoutException e) {
+            throw new ContainerLaunchException("Timed out waiting for the HBase master to complete its initialization");
+        } catch (IOException e) {
+            LOGGER.warn("failed to close the log stream", e);
+        }
+    }
+
+    private void waitForClient(long t0, long deadlineNs, Map<String, Duration> timings) {
+        int attempts = 0;
+
+        while (true) {
+            ++attempts;
+            boolean ready;
+            try {
+                ready = clientCheck.getAsBoolean();
+            } catch (RuntimeException e) {
+                LOGGER.debug("client check attempt {} failed", attempts, e);
+                ready = false;
+            }
+
+            if (ready) {
+                timings.put(PHASE_CLIENT_READY, Duration.ofNanos(System.nanoTime() - t0));
+                LOGGER.debug("client check succeeded after {} attempts", attempts);
+                return;
+            }
+            if (System.nanoTime() + pollInterval.toNanos() > deadlineNs) {
+                throw new ContainerLaunchException("Timed out waiting for HBase to be reachable by the client after "
+                        + attempts + " attempts");
+            }
+
+            HBaseContainerUtils.uncheckedSleep(pollInterval.toMillis());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package io.github.diogenes1oliveira.hbase2;
+
+import io.github.diogenes1oliveira.hbase2.interfaces.RetryPolicy;
+import org.apache.hadoop.hbase.DoNotRetryIOException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+public final class RetryPolicies {
+    public static final Duration DEFAULT_INITIAL_DELAY = Duration.ofMillis(25);
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(1);
+    public static final double DEFAULT_MULTIPLIER = 2.0;
+    public static final double DEFAULT_JITTER = 0.2;
+
+    private RetryPolicies() {
+        // utility class
+    }
+
+    /**
+     * Exponential backoff with the default delays, multiplier and jitter
+     *
+     * @param deadline maximum time to keep retrying
+     */
+    public static RetryPolicy exponentialBackoff(Duration deadline) {
+        return exponentialBackoff(DEFAULT_INITIAL_DELAY, DEFAULT_MAX_DELAY, DEFAULT_MULTIPLIER, DEFAULT_JITTER,
+                deadline);
+    }
+
+    /**
+     * Exponential backoff that retries transient HBase failures
+     *
+     * @param initialDelay delay after the first failure
+     * @param maxDelay     cap for the delay between attempts
+     * @param multiplier   factor applied to the delay after each failure
+     * @param jitter       fraction in [0, 1] of the delay that is randomly subtracted to avoid retries in lockstep
+     * @param deadline     maximum time to keep retrying
+     */
+    public static RetryPolicy exponentialBackoff(Duration initialDelay, Duration maxDelay, double multiplier,
+                                                 double jitter, Duration deadline) {
+        if (multiplier < 1.0) {
+            throw new IllegalArgumentException("Backoff multiplier must be at least 1: " + multiplier);
+        }
+        if (jitter < 0.0 || jitter > 1.0) {
+            throw new IllegalArgumentException("Backoff jitter must be within [0, 1]: " + jitter);
+        }
+        return new ExponentialBackoff(initialDelay.toNanos(), maxDelay.toNanos(), multiplier, jitter,
+                deadline.toNanos());
+    }
+
+    /**
+     * Fixed delay between attempts, retrying transient HBase failures
+     *
+     * @param delay    delay between attempts
+     * @param deadline maximum time to keep retrying
+     */
+    public static RetryPolicy fixedDelay(Duration delay, Duration deadline) {
+        return new ExponentialBackoff(delay.toNanos(), delay.toNanos(), 1.0, 0.0, deadline.toNanos());
+    }
+
+    /**
+     * Classifies exceptions using HBase's own hierarchy
+     * <p>
+     * Any {@link DoNotRetryIOException} (e.g., {@link org.apache.hadoop.hbase.TableNotFoundException}) in the cause
+     * chain is fatal, as is an interruption. Other {@link IOException} failures (e.g., connection refused, master
+     * still initializing, region not online) are transient. Anything else is considered a bug and is fatal.
+     */
+    public static boolean isRetriableHBaseException(Throwable e) {
+        boolean retriable = false;
+
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof DoNotRetryIOException) {
+                return false;
+            }
+            if (t instanceof InterruptedIOException && !(t instanceof SocketTimeoutException)) {
+                return false;
+            }
+            if (t instanceof IOException) {
+                retriable = true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+
+        return retriable;
+    }
+
+    private static class ExponentialBackoff implements RetryPolicy {
+        private final long initialDelayNs;
+        private final long maxDelayNs;
+        private final double multiplier;
+        private final double jitter;
+        private final long deadlineNs;
+
+        ExponentialBackoff(long initialDelayNs, long maxDelayNs, double multiplier, double jitter, long deadlineNs) {
+            this.initialDelayNs = initialDelayNs;
+            this.maxDelayNs = maxDelayNs;
+            this.multiplier = multiplier;
+            this.jitter = jitter;
+            this.deadlineNs = deadlineNs;
+        }
+
+        @Override
+        public boolean isRetriable(Exception e) {
+            return isRetriableHBaseException(e);
+        }
+
+        @Override
+        public long nextDelayNs(int attempts, long elapsedNs) {
+            long remainingNs = deadlineNs - elapsedNs;
+            if (remainingNs <= 0) {
+                return -1;
+            }
+
+            double delayNs = initialDelayNs * Math.pow(multiplier, Math.max(0, attempts - 1));
+            delayNs = Math.min(delayNs, maxDelayNs);
+            delayNs -= delayNs * jitter * ThreadLocalRandom.current().nextDouble();
+
+            return Math.min((long) delayNs, remainingNs);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ExponentialBackoff{initialDelay=%s, maxDelay=%s, multiplier=%s, jitter=%s, deadline=%s}",
+                    Duration.ofNanos(initialDelayNs), Duration.ofNanos(maxDelayNs), multiplier, jitter,
+                    Duration.ofNanos(deadlineNs));
+        }
+    }
+}
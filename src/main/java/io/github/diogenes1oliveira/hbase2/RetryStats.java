@@ -0,0 +1,71 @@
+package io.github.diogenes1oliveira.hbase2;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe counters of the calls made through the retrying helpers
+ */
+public class RetryStats {
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder retriedCalls = new LongAdder();
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder totalNs = new LongAdder();
+    private final LongAdder retriedNs = new LongAdder();
+    private final AtomicLong maxNs = new AtomicLong();
+
+    /**
+     * Records a finished call, successful or not
+     *
+     * @param callAttempts number of attempts made by the call
+     * @param elapsedNs    total time spent in the call, including the delays
+     */
+    public void record(int callAttempts, long elapsedNs) {
+        calls.increment();
+        attempts.add(callAttempts);
+        totalNs.add(elapsedNs);
+        maxNs.accumulateAndGet(elapsedNs, Math::max);
+
+        if (callAttempts > 1) {
+            retriedCalls.increment();
+            retriedNs.add(elapsedNs);
+        }
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    /**
+     * Number of calls that needed more than one attempt
+     */
+    public long getRetriedCalls() {
+        return retriedCalls.sum();
+    }
+
+    public long getAttempts() {
+        return attempts.sum();
+    }
+
+    public Duration getTotalTime() {
+        return Duration.ofNanos(totalNs.sum());
+    }
+
+    /**
+     * Time spent in calls that needed more than one attempt
+     */
+    public Duration getRetriedTime() {
+        return Duration.ofNanos(retriedNs.sum());
+    }
+
+    public Duration getMaxTime() {
+        return Duration.ofNanos(maxNs.get());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RetryStats{calls=%d, retriedCalls=%d, attempts=%d, totalTime=%s, retriedTime=%s, maxTime=%s}",
+                getCalls(), getRetriedCalls(), getAttempts(), getTotalTime(), getRetriedTime(), getMaxTime());
+    }
+}
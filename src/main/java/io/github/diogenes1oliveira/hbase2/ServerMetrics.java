@@ -0,0 +1,248 @@
+package io.github.diogenes1oliveira.hbase2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Snapshot of the server-side metrics of HBase, scraped from the /jmx endpoints of the master and region server
+ * <p>
+ * Counters only ever grow, so the cost of some code is the {@link #diff(ServerMetrics, ServerMetrics)} of the snapshots
+ * taken before and after it. Gauges, like the memstore size, are taken from the latest snapshot in a diff.
+ * <p>
+ * HBase caches the values it serves in /jmx and only refreshes them every few seconds, so a snapshot can be up to
+ * {@link #MAX_STALENESS} old. Code measured right before a snapshot might not show up in it yet: poll until the
+ * expected counter moves rather than asserting on the first diff.
+ *
+ * @see HBaseContainer#getServerMetrics()
+ */
+public class ServerMetrics {
+    public static final String MASTER_SERVER_BEAN = "Hadoop:service=HBase,name=Master,sub=Server";
+    public static final String REGIONSERVER_SERVER_BEAN = "Hadoop:service=HBase,name=RegionServer,sub=Server";
+    public static final String REGIONSERVER_WAL_BEAN = "Hadoop:service=HBase,name=RegionServer,sub=WAL";
+    public static final String JVM_BEAN = "Hadoop:service=HBase,name=JvmMetrics";
+    public static final int TIMEOUT_MS = 5000;
+    /**
+     * Refresh period of the /jmx values, from the region server metrics wrapper (5s) and hbase.metrics.period (10s)
+     */
+    public static final Duration MAX_STALENESS = Duration.ofSeconds(10);
+
+    private final Duration interval;
+    private final Instant takenAt;
+    private final long clusterRequests;
+    private final long totalRequests;
+    private final long readRequests;
+    private final long writeRequests;
+    private final long memStoreSizeBytes;
+    private final long blockCacheHits;
+    private final long blockCacheMisses;
+    private final long walSyncs;
+    private final double walSyncMeanMs;
+    private final long compactionQueueLength;
+    private final long gcCount;
+    private final long gcTimeMs;
+
+    public ServerMetrics(Duration interval, Instant takenAt, long clusterRequests, long totalRequests,
+            long readRequests, long writeRequests, long memStoreSizeBytes, long blockCacheHits, long blockCacheMisses,
+            long walSyncs, double walSyncMeanMs, long compactionQueueLength, long gcCount, long gcTimeMs) {
+        this.interval = interval;
+        this.takenAt = takenAt;
+        this.clusterRequests = clusterRequests;
+        this.totalRequests = totalRequests;
+        this.readRequests = readRequests;
+        this.writeRequests = writeRequests;
+        this.memStoreSizeBytes = memStoreSizeBytes;
+        this.blockCacheHits = blockCacheHits;
+        this.blockCacheMisses = blockCacheMisses;
+        this.walSyncs = walSyncs;
+        this.walSyncMeanMs = walSyncMeanMs;
+        this.compactionQueueLength = compactionQueueLength;
+        this.gcCount = gcCount;
+        this.gcTimeMs = gcTimeMs;
+    }
+
+    /**
+     * Scrapes the /jmx endpoints of the master and region server info servers
+     *
+     * @param host                 host of the info servers
+     * @param masterInfoPort       port of the master info server
+     * @param regionServerInfoPort port of the region server info server
+     */
+    public static ServerMetrics fetch(String host, int masterInfoPort, int regionServerInfoPort) {
+        Map<String, String> beans = new HashMap<>();
+        beans.put(MASTER_SERVER_BEAN, fetchBean(host, masterInfoPort, MASTER_SERVER_BEAN));
+        beans.put(REGIONSERVER_SERVER_BEAN, fetchBean(host, regionServerInfoPort, REGIONSERVER_SERVER_BEAN));
+        beans.put(REGIONSERVER_WAL_BEAN, fetchBean(host, regionServerInfoPort, REGIONSERVER_WAL_BEAN));
+        beans.put(JVM_BEAN, fetchBean(host, regionServerInfoPort, JVM_BEAN));
+
+        return parse(beans, Instant.now());
+    }
+
+    /**
+     * Builds the snapshot from the /jmx?qry=BEAN responses, keyed by bean name
+     * <p>
+     * Metrics missing from the responses are zero.
+     */
+    public static ServerMetrics parse(Map<String, String> beans, Instant takenAt) {
+        String master = beans.getOrDefault(MASTER_SERVER_BEAN, "");
+        String regionServer = beans.getOrDefault(REGIONSERVER_SERVER_BEAN, "");
+        String wal = beans.getOrDefault(REGIONSERVER_WAL_BEAN, "");
+        String jvm = beans.getOrDefault(JVM_BEAN, "");
+
+        return new ServerMetrics(
+                Duration.ZERO,
+                takenAt,
+                (long) numberField(master, "clusterRequests"),
+                (long) numberField(regionServer, "totalRequestCount"),
+                (long) numberField(regionServer, "readRequestCount"),
+                (long) numberField(regionServer, "writeRequestCount"),
+                (long) numberField(regionServer, "memStoreSize"),
+                (long) numberField(regionServer, "blockCacheHitCount"),
+                (long) numberField(regionServer, "blockCacheMissCount"),
+                (long) numberField(wal, "SyncTime_num_ops"),
+                numberField(wal, "SyncTime_mean"),
+                (long) numberField(regionServer, "compactionQueueLength"),
+                (long) numberField(jvm, "GcCount"),
+                (long) numberField(jvm, "GcTimeMillis"));
+    }
+
+    /**
+     * Metrics between two snapshots: counters are subtracted and gauges are taken from {@code after}
+     */
+    public static ServerMetrics diff(ServerMetrics before, ServerMetrics after) {
+        return new ServerMetrics(
+                Duration.between(before.takenAt, after.takenAt),
+                after.takenAt,
+                after.clusterRequests - before.clusterRequests,
+                after.totalRequests - before.totalRequests,
+                after.readRequests - before.readRequests,
+                after.writeRequests - before.writeRequests,
+                after.memStoreSizeBytes,
+                after.blockCacheHits - before.blockCacheHits,
+                after.blockCacheMisses - before.blockCacheMisses,
+                after.walSyncs - before.walSyncs,
+                after.walSyncMeanMs,
+                after.compactionQueueLength,
+                after.gcCount - before.gcCount,
+                after.gcTimeMs - before.gcTimeMs);
+    }
+
+    /**
+     * Time between the snapshots if this is a diff, zero otherwise
+     */
+    public Duration getInterval() {
+        return interval;
+    }
+
+    public Instant getTakenAt() {
+        return takenAt;
+    }
+
+    /**
+     * Requests received by the master from all the region servers
+     */
+    public long getClusterRequests() {
+        return clusterRequests;
+    }
+
+    public long getTotalRequests() {
+        return totalRequests;
+    }
+
+    public long getReadRequests() {
+        return readRequests;
+    }
+
+    public long getWriteRequests() {
+        return writeRequests;
+    }
+
+    public long getMemStoreSizeBytes() {
+        return memStoreSizeBytes;
+    }
+
+    public long getBlockCacheHits() {
+        return blockCacheHits;
+    }
+
+    public long getBlockCacheMisses() {
+        return blockCacheMisses;
+    }
+
+    /**
+     * Ratio of block cache lookups that were hits, or 0 if there were no lookups
+     */
+    public double getBlockCacheHitRatio() {
+        long lookups = blockCacheHits + blockCacheMisses;
+        return lookups == 0 ? 0.0 : (double) blockCacheHits / lookups;
+    }
+
+    public long getWalSyncs() {
+        return walSyncs;
+    }
+
+    /**
+     * Mean latency of the WAL syncs in the last metrics interval, or 0 if there were none
+     * <p>
+     * The histogram behind it is reset every interval, so this is a gauge: a diff keeps the value of the latest
+     * snapshot instead of covering the time between the snapshots.
+     */
+    public double getWalSyncMeanMs() {
+        return walSyncMeanMs;
+    }
+
+    public long getCompactionQueueLength() {
+        return compactionQueueLength;
+    }
+
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    public long getGcTimeMs() {
+        return gcTimeMs;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ServerMetrics{interval=%s, clusterRequests=%d, totalRequests=%d, readRequests=%d, "
+                        + "writeRequests=%d, memStoreSizeBytes=%d, blockCacheHitRatio=%.3f, walSyncs=%d, "
+                        + "walSyncMeanMs=%.3f, compactionQueueLength=%d, gcCount=%d, gcTimeMs=%d}",
+                interval, clusterRequests, totalRequests, readRequests, writeRequests, memStoreSizeBytes,
+                getBlockCacheHitRatio(), walSyncs, walSyncMeanMs, compactionQueueLength, gcCount, gcTimeMs);
+    }
+
+    static double numberField(String json, String name) {
+        Pattern pattern = Pattern.compile("\"" + Pattern.quote(name) + "\"\\s*:\\s*(-?[0-9][0-9.eE+-]*)");
+        Matcher matcher = pattern.matcher(json);
+        return matcher.find() ? Double.parseDouble(matcher.group(1)) : 0.0;
+    }
+
+    private static String fetchBean(String host, int port, String bean) {
+        try {
+            URL url = new URL("http://" + host + ":" + port + "/jmx?qry=" + bean);
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setConnectTimeout(TIMEOUT_MS);
+            connection.setReadTimeout(TIMEOUT_MS);
+
+            if (connection.getResponseCode() != 200) {
+                throw new IOException("HTTP " + connection.getResponseCode() + " from " + url);
+            }
+
+            try (InputStream stream = connection.getInputStream()) {
+                return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to fetch " + bean + " from " + host + ":" + port, e);
+        }
+    }
+}
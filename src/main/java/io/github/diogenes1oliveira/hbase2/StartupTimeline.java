@@ -0,0 +1,167 @@
+package io.github.diogenes1oliveira.hbase2;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Instants at which each phase of a container start completed, see {@link HBaseContainer#getStartupTimeline()}
+ * <p>
+ * Phases come from two sources: the client side ({@link #SOURCE_CLIENT}), recorded by the container lifecycle hooks,
+ * and the container side ({@link #SOURCE_CONTAINER}), recorded by bin/hbase2-docker-timeline in the file at
+ * $HBASE_TIMELINE_FILE. Both are ordered by instant, so the time spent in a phase is the difference to the previous
+ * one. The clocks of the Docker host and the JVM are assumed to be in sync.
+ * <p>
+ * A reused container keeps the file written when it was created, so its phases must be dropped with
+ * {@link #since(Instant)}.
+ */
+public class StartupTimeline {
+    public static final String SOURCE_CLIENT = "client";
+    public static final String SOURCE_CONTAINER = "container";
+    public static final StartupTimeline EMPTY = new StartupTimeline(Collections.emptyList());
+
+    private static final Pattern CONTAINER_PHASE_PATTERN = Pattern.compile(
+            "\\{\\s*\"name\"\\s*:\\s*\"([^\"]+)\"\\s*,\\s*\"epochMs\"\\s*:\\s*([0-9]+)\\s*}");
+
+    private final List<Phase> phases;
+
+    public StartupTimeline(List<Phase> phases) {
+        List<Phase> sorted = new ArrayList<>(phases);
+        sorted.sort(Comparator.comparing(Phase::getCompletedAt));
+        this.phases = Collections.unmodifiableList(sorted);
+    }
+
+    /**
+     * Parses the JSON written by bin/hbase2-docker-timeline
+     */
+    public static List<Phase> parseContainerPhases(String json) {
+        List<Phase> parsed = new ArrayList<>();
+        Matcher matcher = CONTAINER_PHASE_PATTERN.matcher(json);
+
+        while (matcher.find()) {
+            Instant completedAt = Instant.ofEpochMilli(Long.parseLong(matcher.group(2)));
+            parsed.add(new Phase(SOURCE_CONTAINER, matcher.group(1), completedAt));
+        }
+
+        return parsed;
+    }
+
+    /**
+     * Timeline without the phases completed before the instant, e.g. the ones of a previous start
+     */
+    public StartupTimeline since(Instant start) {
+        List<Phase> recent = new ArrayList<>();
+
+        for (Phase phase : phases) {
+            if (!phase.getCompletedAt().isBefore(start)) {
+                recent.add(phase);
+            }
+        }
+
+        return new StartupTimeline(recent);
+    }
+
+    /**
+     * Phases ordered by the instant they completed
+     */
+    public List<Phase> getPhases() {
+        return phases;
+    }
+
+    /**
+     * Time between the first and the last phase
+     */
+    public Duration getTotalDuration() {
+        if (phases.isEmpty()) {
+            return Duration.ZERO;
+        }
+        return Duration.between(phases.get(0).getCompletedAt(), phases.get(phases.size() - 1).getCompletedAt());
+    }
+
+    /**
+     * Time spent in each phase, i.e., since the previous one completed, keyed by "source:name"
+     * <p>
+     * The first phase takes no time, as it only marks the start.
+     */
+    public Map<String, Duration> getDurations() {
+        Map<String, Duration> durations = new LinkedHashMap<>();
+        Instant previous = null;
+
+        for (Phase phase : phases) {
+            Duration duration = previous == null ? Duration.ZERO : Duration.between(previous, phase.getCompletedAt());
+            durations.put(phase.getSource() + ":" + phase.getName(), duration);
+            previous = phase.getCompletedAt();
+        }
+
+        return durations;
+    }
+
+    /**
+     * JSON array of {"source", "name", "epochMs", "durationMs"} objects, meant to be stored by CI jobs
+     */
+    public String toJson() {
+        StringBuilder builder = new StringBuilder("[");
+        Instant previous = null;
+
+        for (Phase phase : phases) {
+            long durationMs = previous == null ? 0 : Duration.between(previous, phase.getCompletedAt()).toMillis();
+            builder.append(previous == null ? "\n" : ",\n");
+            builder.append(String.format("  {\"source\": \"%s\", \"name\": \"%s\", \"epochMs\": %d, \"durationMs\": %d}",
+                    phase.getSource(), phase.getName(), phase.getCompletedAt().toEpochMilli(), durationMs));
+            previous = phase.getCompletedAt();
+        }
+
+        return builder.append("\n]\n").toString();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("StartupTimeline{total=%s", getTotalDuration()));
+
+        for (Map.Entry<String, Duration> entry : getDurations().entrySet()) {
+            builder.append(", ").append(entry.getKey()).append('=').append(entry.getValue().toMillis()).append("ms");
+        }
+
+        return builder.append('}').toString();
+    }
+
+    /**
+     * Startup phase, identified by its source and name
+     */
+    public static class Phase {
+        private final String source;
+        private final String name;
+        private final Instant completedAt;
+
+        public Phase(String source, String name, Instant completedAt) {
+            this.source = source;
+            this.name = name;
+            this.completedAt = completedAt;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Instant getCompletedAt() {
+            return completedAt;
+        }
+
+        @Override
+        public String toString() {
+            return source + ":" + name + "@" + completedAt;
+        }
+    }
+}
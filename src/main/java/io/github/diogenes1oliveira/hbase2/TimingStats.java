@@ -0,0 +1,46 @@
+package io.github.diogenes1oliveira.hbase2;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe count, total and maximum of the durations of some operation
+ */
+public class TimingStats {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNs = new LongAdder();
+    private final AtomicLong maxNs = new AtomicLong();
+
+    public void record(long elapsedNs) {
+        count.increment();
+        totalNs.add(elapsedNs);
+        maxNs.accumulateAndGet(elapsedNs, Math::max);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public Duration getTotalTime() {
+        return Duration.ofNanos(totalNs.sum());
+    }
+
+    public Duration getMaxTime() {
+        return Duration.ofNanos(maxNs.get());
+    }
+
+    /**
+     * Mean duration, or zero if nothing was recorded yet
+     */
+    public Duration getMeanTime() {
+        long currentCount = count.sum();
+        return currentCount == 0 ? Duration.ZERO : Duration.ofNanos(totalNs.sum() / currentCount);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TimingStats{count=%d, totalTime=%s, meanTime=%s, maxTime=%s}",
+                getCount(), getTotalTime(), getMeanTime(), getMaxTime());
+    }
+}
@@ -0,0 +1,22 @@
+package io.github.diogenes1oliveira.hbase2.interfaces;
+
+/**
+ * Strategy to decide whether and when a failed HBase operation should be attempted again
+ */
+public interface RetryPolicy {
+    /**
+     * Whether the failure is transient, so the operation can be attempted again
+     *
+     * @param e exception thrown by the last attempt
+     */
+    boolean isRetriable(Exception e);
+
+    /**
+     * Delay to wait before the next attempt
+     *
+     * @param attempts  number of attempts made so far, starting at 1
+     * @param elapsedNs nanoseconds elapsed since the first attempt started
+     * @return delay in nanoseconds or a negative value to give up
+     */
+    long nextDelayNs(int attempts, long elapsedNs);
+}
@@ -0,0 +1,80 @@
+package io.github.diogenes1oliveira.hbase2.junit;
+
+import io.github.diogenes1oliveira.hbase2.HBaseContainer;
+import io.github.diogenes1oliveira.hbase2.HBaseNamespace;
+import io.github.diogenes1oliveira.hbase2.HBaseSingletonContainer;
+import org.apache.hadoop.hbase.client.Connection;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * JUnit 5 extension that isolates each test in its own HBase namespace within the singleton container
+ * <p>
+ * Parameters of type {@link HBaseNamespace} are resolved to a namespace created on demand for the current extension
+ * context: test methods get one of their own, while constructors and {@code @BeforeAll} methods get one shared by the
+ * whole class. The namespace and its tables are dropped asynchronously once the context is closed, so the next test
+ * doesn't wait for it.
+ * <p>
+ * Parameters of type {@link HBaseContainer} and {@link Connection} are resolved to the singleton container and its
+ * shared connection. Tables must be resolved with {@link HBaseNamespace#tableName(String)} to stay isolated.
+ */
+public class HBaseNamespaceExtension implements ParameterResolver {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HBaseNamespaceExtension.class);
+    private static final ExtensionContext.Namespace STORE_NAMESPACE =
+            ExtensionContext.Namespace.create(HBaseNamespaceExtension.class);
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        Class<?> type = parameterContext.getParameter().getType();
+        return type == HBaseNamespace.class || type == HBaseContainer.class || type == Connection.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        Class<?> type = parameterContext.getParameter().getType();
+        HBaseContainer container = HBaseSingletonContainer.instance();
+
+        if (type == HBaseContainer.class) {
+            return container;
+        } else if (type == Connection.class) {
+            return container.getConnection();
+        } else {
+            return getNamespace(container, extensionContext);
+        }
+    }
+
+    private static HBaseNamespace getNamespace(HBaseContainer container, ExtensionContext context) {
+        ExtensionContext.Store store = context.getStore(STORE_NAMESPACE);
+
+        // lookups fall back to the parent stores, so a fixed key would return the namespace of the class
+        return store.getOrComputeIfAbsent(context.getUniqueId(), key -> {
+            String hint = context.getTestClass().map(Class::getSimpleName).orElse(null);
+            HBaseNamespace namespace = container.createNamespace(HBaseNamespace.generateName(hint));
+            LOGGER.info("created namespace {} for {}", namespace.getName(), context.getUniqueId());
+
+            return new NamespaceResource(namespace);
+        }, NamespaceResource.class).namespace;
+    }
+
+    private static class NamespaceResource implements ExtensionContext.Store.CloseableResource {
+        private final HBaseNamespace namespace;
+
+        NamespaceResource(HBaseNamespace namespace) {
+            this.namespace = namespace;
+        }
+
+        @Override
+        public void close() {
+            namespace.dropAsync().whenComplete((ignored, e) -> {
+                if (e != null) {
+                    LOGGER.warn("failed to drop namespace {}", namespace.getName(), e);
+                } else {
+                    LOGGER.debug("dropped namespace {}", namespace.getName());
+                }
+            });
+        }
+    }
+}
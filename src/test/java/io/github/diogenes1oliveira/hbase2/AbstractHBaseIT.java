@@ -1,8 +1,13 @@
 package io.github.diogenes1oliveira.hbase2;
 
 import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.AsyncTable;
+import org.apache.hadoop.hbase.client.Delete;
 import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.client.Table;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,11 +19,22 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.regex.Pattern;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.nullValue;
 
 @Testcontainers
 public abstract class AbstractHBaseIT {
@@ -68,4 +84,176 @@ public abstract class AbstractHBaseIT {
         });
     }
 
+    @Test
+    void shouldDropTablesMatchingFilters() {
+        for (int i = 0; i < 5; ++i) {
+            container.createTable("drop-me-" + i, "f");
+        }
+        container.createTable("keep-me", "f");
+
+        List<TableName> dropped = container.dropTables(null, Pattern.compile("drop-me-.*"));
+        assertThat(dropped.size(), equalTo(5));
+
+        List<TableName> remaining = container.dropTables(null, null);
+        assertThat(remaining, contains(TableName.valueOf("keep-me")));
+    }
+
+    @Test
+    void shouldClearSmallTablesByDeletingRows() throws IOException {
+        TableName tableName = TableName.valueOf("test-table-" + UUID.randomUUID());
+        byte[] family = "f".getBytes(StandardCharsets.UTF_8);
+        byte[] col = "col".getBytes(StandardCharsets.UTF_8);
+        container.createTable(tableName, family);
+
+        container.run(connection -> {
+            List<Put> puts = new ArrayList<>();
+            for (int i = 0; i < 2500; ++i) {
+                Put put = new Put(("row-" + i).getBytes(StandardCharsets.UTF_8));
+                put.addColumn(family, col, ("value-" + i).getBytes(StandardCharsets.UTF_8));
+                puts.add(put);
+            }
+            try (Table table = connection.getTable(tableName)) {
+                table.put(puts);
+            }
+        });
+
+        ClearTableResult result = container.clearTable(tableName);
+        assertThat(result.getStrategy(), equalTo(ClearTableResult.Strategy.DELETE));
+        assertThat(result.getDeletedRows(), equalTo(2500L));
+
+        container.run(connection -> {
+            try (Table table = connection.getTable(tableName);
+                 ResultScanner scanner = table.getScanner(new Scan())) {
+                assertThat(scanner.next(), nullValue());
+            }
+        });
+    }
+
+    @Test
+    void shouldRestoreBaselines() throws IOException {
+        TableName tableName = TableName.valueOf("test-table-" + UUID.randomUUID());
+        byte[] family = "f".getBytes(StandardCharsets.UTF_8);
+        byte[] col = "col".getBytes(StandardCharsets.UTF_8);
+        byte[] seededRow = "seeded".getBytes(StandardCharsets.UTF_8);
+        byte[] otherRow = "other".getBytes(StandardCharsets.UTF_8);
+        container.createTable(tableName, family);
+
+        container.run(connection -> {
+            try (Table table = connection.getTable(tableName)) {
+                table.put(new Put(seededRow).addColumn(family, col, "seeded".getBytes(StandardCharsets.UTF_8)));
+            }
+        });
+        BaselineResult captured = container.captureBaseline("seeded");
+        assertThat(captured.getTableNames(), contains(tableName));
+
+        try {
+            container.run(connection -> {
+                try (Table table = connection.getTable(tableName)) {
+                    table.delete(new Delete(seededRow));
+                    table.put(new Put(otherRow).addColumn(family, col, "other".getBytes(StandardCharsets.UTF_8)));
+                }
+            });
+
+            BaselineResult restored = container.restoreBaseline("seeded");
+            assertThat(restored.getTableNames(), contains(tableName));
+
+            container.run(connection -> {
+                try (Table table = connection.getTable(tableName)) {
+                    assertThat(table.exists(new Get(seededRow)), equalTo(true));
+                    assertThat(table.exists(new Get(otherRow)), equalTo(false));
+                }
+            });
+        } finally {
+            container.deleteBaseline("seeded");
+        }
+    }
+
+    @Test
+    void shouldTruncateTablesAndLeaveThemEnabled() throws IOException {
+        TableName tableName = TableName.valueOf("test-table-" + UUID.randomUUID());
+        container.createTable(tableName, new byte[]{'f'});
+
+        container.truncateTable(tableName);
+
+        assertThat(container.getAdmin().isTableEnabled(tableName), equalTo(true));
+    }
+
+    @Test
+    void shouldPipelineWritesThroughTheAsyncConnection() throws IOException {
+        TableName tableName = TableName.valueOf("test-table-" + UUID.randomUUID());
+        byte[] family = "f".getBytes(StandardCharsets.UTF_8);
+        container.createTableAsync(tableName, family).join();
+
+        AsyncTable<?> table = container.getAsyncConnection().getTable(tableName);
+        List<Put> puts = new ArrayList<>();
+        for (int i = 0; i < 100; ++i) {
+            byte[] row = ("row-" + i).getBytes(StandardCharsets.UTF_8);
+            puts.add(new Put(row).addColumn(family, family, row));
+        }
+        table.putAll(puts).join();
+        Result result = table.get(new Get("row-42".getBytes(StandardCharsets.UTF_8))).join();
+        assertThat(new String(result.getValue(family, family), StandardCharsets.UTF_8), equalTo("row-42"));
+
+        container.truncateTableAsync(tableName).join();
+        assertThat(container.getAdmin().isTableEnabled(tableName), equalTo(true));
+        assertThat(table.get(new Get("row-42".getBytes(StandardCharsets.UTF_8))).join().isEmpty(), equalTo(true));
+
+        container.dropTableAsync(tableName).join();
+        assertThat(container.getAdmin().tableExists(tableName), equalTo(false));
+    }
+
+    @Test
+    void shouldMeasureTheServerSideCostOfWrites() throws IOException {
+        TableName tableName = TableName.valueOf("test-table-" + UUID.randomUUID());
+        byte[] family = "f".getBytes(StandardCharsets.UTF_8);
+        container.createTable(tableName, family);
+
+        ServerMetrics before = container.getServerMetrics();
+        container.run(connection -> {
+            try (Table table = connection.getTable(tableName)) {
+                for (int i = 0; i < 10; ++i) {
+                    byte[] row = ("row-" + i).getBytes(StandardCharsets.UTF_8);
+                    table.put(new Put(row).addColumn(family, family, row));
+                }
+            }
+        });
+        // the /jmx values are only refreshed every few seconds
+        ServerMetrics diff = ServerMetrics.diff(before, container.getServerMetrics());
+        long deadline = System.nanoTime() + ServerMetrics.MAX_STALENESS.multipliedBy(3).toNanos();
+        while (diff.getWriteRequests() < 10 && System.nanoTime() < deadline) {
+            HBaseContainerUtils.uncheckedSleep(500);
+            diff = ServerMetrics.diff(before, container.getServerMetrics());
+        }
+        getLogger().info("server-side cost of the writes: {}", diff);
+
+        assertThat(diff.getWriteRequests(), greaterThanOrEqualTo(10L));
+    }
+
+    @Test
+    void shouldExportPrometheusMetrics() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(container.getMetricsUrl()).openConnection();
+        String body;
+
+        try (InputStream stream = connection.getInputStream()) {
+            body = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        assertThat(connection.getResponseCode(), equalTo(200));
+        assertThat(body, containsString("hadoop_hbase_regionserver_server_totalrequestcount "));
+    }
+
+    @Test
+    void shouldRecordTheStartupTimeline() {
+        StartupTimeline timeline = container.getStartupTimeline();
+        getLogger().info("startup timeline:\n{}", timeline.toJson());
+
+        assertThat(timeline.getDurations().keySet(), hasItems(
+                "client:start-requested",
+                "container:entrypoint",
+                "container:init-done",
+                "container:hbase-exec",
+                "client:wait:" + HBaseWaitStrategy.PHASE_CLIENT_READY,
+                "client:container-started"));
+    }
+
 }
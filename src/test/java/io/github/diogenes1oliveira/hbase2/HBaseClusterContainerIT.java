@@ -0,0 +1,65 @@
+package io.github.diogenes1oliveira.hbase2;
+
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptorBuilder;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.RegionLocator;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.client.TableDescriptorBuilder;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+
+@Testcontainers
+class HBaseClusterContainerIT {
+    @Container
+    public static HBaseClusterContainer cluster = HBaseClusterContainer.newBuilder().regionServers(2).build();
+
+    @Test
+    void shouldRegisterEveryRegionServer() throws IOException {
+        assertThat(cluster.getAdmin().getRegionServers(), hasSize(2));
+        assertThat(cluster.getRegionServers(), hasSize(2));
+    }
+
+    @Test
+    void shouldSpreadTheRegionsAcrossTheServers() throws IOException {
+        TableName tableName = TableName.valueOf("spread");
+        byte[] family = "f".getBytes(UTF_8);
+        byte[][] splits = {"b".getBytes(UTF_8), "c".getBytes(UTF_8), "d".getBytes(UTF_8)};
+        String[] rows = {"a", "b", "c", "d"};
+        cluster.getAdmin().createTable(TableDescriptorBuilder.newBuilder(tableName)
+                .setColumnFamily(ColumnFamilyDescriptorBuilder.of(family))
+                .build(), splits);
+
+        Set<ServerName> servers = new HashSet<>();
+        try (RegionLocator locator = cluster.getConnection().getRegionLocator(tableName)) {
+            for (HRegionLocation location : locator.getAllRegionLocations()) {
+                servers.add(location.getServerName());
+            }
+        }
+        assertThat(servers, hasSize(2));
+
+        try (Table table = cluster.getConnection().getTable(tableName)) {
+            for (String row : rows) {
+                table.put(new Put(row.getBytes(UTF_8)).addColumn(family, family, row.getBytes(UTF_8)));
+            }
+            for (String row : rows) {
+                byte[] value = table.get(new Get(row.getBytes(UTF_8))).getValue(family, family);
+                assertThat(new String(value, UTF_8), equalTo(row));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+package io.github.diogenes1oliveira.hbase2;
+
+import org.apache.hadoop.hbase.TableName;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HBaseContainerPoolIT {
+    static HBaseContainerPool pool;
+
+    @BeforeAll
+    static void setUp() {
+        pool = HBaseContainerPool.newBuilder()
+                .size(2)
+                .acquireTimeout(Duration.ofSeconds(1))
+                .build();
+        pool.start();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void shouldLeaseContainersExclusively() {
+        HBaseContainer first = pool.acquire();
+        HBaseContainer second = pool.acquire();
+
+        try {
+            assertThat(first, not(sameInstance(second)));
+            assertThat(pool.getLeasedCount(), equalTo(2));
+            assertThrows(RuntimeException.class, pool::acquire);
+        } finally {
+            pool.release(first);
+            pool.release(second);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> pool.release(first));
+    }
+
+    @Test
+    void shouldResetContainersOnRelease() {
+        HBaseContainer container = pool.acquire();
+        container.createTable("pooled", "f");
+        long resets = pool.getResetStats().getCount();
+        pool.release(container);
+
+        HBaseContainer next;
+        do {
+            next = pool.acquire();
+            if (next != container) {
+                pool.release(next);
+            }
+        } while (next != container);
+
+        try {
+            assertThat(pool.getResetStats().getCount(), greaterThan(resets));
+            assertThat(container.getAsAdmin(null, admin -> admin.tableExists(TableName.valueOf("pooled"))),
+                    equalTo(false));
+        } finally {
+            pool.release(container);
+        }
+    }
+}
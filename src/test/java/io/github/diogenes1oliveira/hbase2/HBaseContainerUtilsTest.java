@@ -0,0 +1,177 @@
+package io.github.diogenes1oliveira.hbase2;
+
+import io.github.diogenes1oliveira.hbase2.interfaces.RetryPolicy;
+import org.apache.hadoop.hbase.TableExistsException;
+import org.apache.hadoop.hbase.TableNotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HBaseContainerUtilsTest {
+    static final RetryPolicy POLICY = RetryPolicies.fixedDelay(Duration.ofMillis(1), Duration.ofSeconds(5));
+
+    @SuppressWarnings("unchecked")
+    static final Class<? extends Exception>[] IGNORED = new Class[]{TableExistsException.class};
+
+    @Test
+    void retry_ShouldRetryTransientFailuresAndRecordStats() {
+        AtomicInteger calls = new AtomicInteger();
+        RetryStats stats = new RetryStats();
+
+        String result = HBaseContainerUtils.retry(IGNORED, "default", POLICY, stats, () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new IOException("not yet");
+            }
+            return "value";
+        });
+
+        assertThat(result, equalTo("value"));
+        assertThat(stats.getCalls(), equalTo(1L));
+        assertThat(stats.getRetriedCalls(), equalTo(1L));
+        assertThat(stats.getAttempts(), equalTo(3L));
+    }
+
+    @Test
+    void retry_ShouldReturnDefaultValue_IfIgnoredException() {
+        String result = HBaseContainerUtils.retry(IGNORED, "default", POLICY, null, () -> {
+            throw new TableExistsException("table");
+        });
+
+        assertThat(result, equalTo("default"));
+    }
+
+    @Test
+    void retry_ShouldFailFast_IfFatalException() {
+        AtomicInteger calls = new AtomicInteger();
+
+        UncheckedIOException e = assertThrows(UncheckedIOException.class, () -> {
+            HBaseContainerUtils.retry(IGNORED, "default", POLICY, null, () -> {
+                calls.incrementAndGet();
+                throw new TableNotFoundException("table");
+            });
+        });
+
+        assertThat(e.getCause(), instanceOf(TableNotFoundException.class));
+        assertThat(calls.get(), equalTo(1));
+    }
+
+    @Test
+    void retry_ShouldGiveUp_AfterTheDeadline() {
+        RetryPolicy policy = RetryPolicies.fixedDelay(Duration.ofMillis(1), Duration.ofMillis(20));
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> {
+            HBaseContainerUtils.retry(IGNORED, "default", policy, null, () -> {
+                throw new IOException("never");
+            });
+        });
+
+        assertThat(e.getCause(), instanceOf(IOException.class));
+    }
+
+    @Test
+    void forEachAsync_ShouldBoundTheCallsInFlight() {
+        List<Integer> items = Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicInteger done = new AtomicInteger();
+
+        CompletableFuture<Void> future = HBaseContainerUtils.forEachAsync(items, 3, item -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            return CompletableFuture.runAsync(() -> {
+                HBaseContainerUtils.uncheckedSleep(5);
+                inFlight.decrementAndGet();
+                done.incrementAndGet();
+            });
+        });
+
+        HBaseContainerUtils.await(future, Duration.ofSeconds(10).toNanos());
+        assertThat(done.get(), equalTo(items.size()));
+        assertThat(maxInFlight.get(), lessThanOrEqualTo(3));
+    }
+
+    @Test
+    void forEachAsync_ShouldCompleteAllCalls_EvenIfSomeFail() {
+        List<Integer> items = Arrays.asList(1, 2, 3, 4, 5);
+        AtomicInteger done = new AtomicInteger();
+
+        CompletableFuture<Void> future = HBaseContainerUtils.forEachAsync(items, 2, item -> {
+            done.incrementAndGet();
+            if (item % 2 == 0) {
+                return CompletableFuture.failedFuture(new IOException("failed " + item));
+            }
+            return CompletableFuture.completedFuture(item);
+        });
+
+        UncheckedIOException e = assertThrows(UncheckedIOException.class, () -> {
+            HBaseContainerUtils.await(future, Duration.ofSeconds(10).toNanos());
+        });
+        assertThat(e.getCause().getSuppressed().length, equalTo(1));
+        assertThat(done.get(), equalTo(items.size()));
+    }
+
+    @Test
+    void forEachAsync_ShouldNotGrowTheStack_WhenTheCallsAreAlreadyComplete() {
+        List<Integer> items = IntStream.range(0, 100_000).boxed().collect(Collectors.toList());
+        AtomicInteger done = new AtomicInteger();
+
+        CompletableFuture<Void> future = HBaseContainerUtils.forEachAsync(items, 2, item -> {
+            done.incrementAndGet();
+            return CompletableFuture.completedFuture(item);
+        });
+
+        HBaseContainerUtils.await(future, Duration.ofSeconds(10).toNanos());
+        assertThat(done.get(), equalTo(items.size()));
+    }
+
+    @Test
+    void ignoreFailures_ShouldOnlyIgnoreTheGivenExceptions() {
+        CompletableFuture<String> ignored = HBaseContainerUtils.ignoreFailures(
+                CompletableFuture.failedFuture(new TableExistsException("table")), TableExistsException.class);
+        assertThat(ignored.join(), nullValue());
+
+        CompletableFuture<String> failed = HBaseContainerUtils.ignoreFailures(
+                CompletableFuture.failedFuture(new TableNotFoundException("table")), TableExistsException.class);
+        CompletionException e = assertThrows(CompletionException.class, failed::join);
+        assertThat(e.getCause(), instanceOf(TableNotFoundException.class));
+    }
+
+    @Test
+    void getEnvValue_ShouldReturnTheLastEntry() {
+        String[] env = {"HBASE_TIMELINE_FILE=/default.json", "OTHER=a=b", "HBASE_TIMELINE_FILE=/override.json"};
+
+        assertThat(HBaseContainerUtils.getEnvValue(env, "HBASE_TIMELINE_FILE"), equalTo("/override.json"));
+        assertThat(HBaseContainerUtils.getEnvValue(env, "OTHER"), equalTo("a=b"));
+        assertThat(HBaseContainerUtils.getEnvValue(env, "MISSING"), nullValue());
+        assertThat(HBaseContainerUtils.getEnvValue(null, "MISSING"), nullValue());
+    }
+
+    @Test
+    void findFreePorts_ShouldFindDistinctBindablePorts() throws IOException {
+        List<Integer> ports = HBaseContainerUtils.findFreePorts(5);
+
+        assertThat(new HashSet<>(ports).size(), equalTo(5));
+        for (int port : ports) {
+            try (ServerSocket socket = new ServerSocket(port)) {
+                assertThat(socket.getLocalPort(), equalTo(port));
+            }
+        }
+    }
+}
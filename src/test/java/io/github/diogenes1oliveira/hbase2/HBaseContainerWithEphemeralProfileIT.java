@@ -0,0 +1,26 @@
+package io.github.diogenes1oliveira.hbase2;
+
+import org.junit.jupiter.api.Test;
+import org.junitpioneer.jupiter.SetSystemProperty;
+
+import java.io.IOException;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+
+@SetSystemProperty(key = "hbase2-docker.profile", value = "ephemeral")
+class HBaseContainerWithEphemeralProfileIT extends AbstractHBaseIT {
+    @Test
+    void shouldKeepTheDataInATmpfs() throws IOException, InterruptedException {
+        assertThat(container.getProfiles(), contains(HBaseContainer.Profile.EPHEMERAL));
+
+        String fsType = container.execInContainer("stat", "-f", "-c", "%T", HBaseContainer.EPHEMERAL_DIR).getStdout();
+        assertThat(fsType.trim(), equalTo("tmpfs"));
+
+        String site = container.execInContainer("cat", "/etc/hbase/hbase-site.xml").getStdout();
+        assertThat(site, containsString(HBaseContainer.EPHEMERAL_DIR + "/hbase"));
+    }
+
+}
@@ -0,0 +1,26 @@
+package io.github.diogenes1oliveira.hbase2;
+
+import org.junit.jupiter.api.Test;
+import org.junitpioneer.jupiter.SetSystemProperty;
+
+import java.io.IOException;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+
+@SetSystemProperty(key = "hbase2-docker.profile", value = "low-memory")
+@SetSystemProperty(key = "hbase2-docker.memory-limit-mb", value = "768")
+class HBaseContainerWithLowMemoryProfileIT extends AbstractHBaseIT {
+    @Test
+    void shouldSizeHBaseFromTheMemoryLimit() throws IOException, InterruptedException {
+        assertThat(container.getProfiles(), contains(HBaseContainer.Profile.LOW_MEMORY));
+        assertThat(container.getContainerInfo().getHostConfig().getMemory(), equalTo(768L * 1024 * 1024));
+
+        String site = container.execInContainer("cat", "/etc/hbase/hbase-site.xml").getStdout();
+        assertThat(site, containsString("hbase.regionserver.handler.count"));
+        assertThat(site, containsString("<value>-1</value>"));
+    }
+
+}
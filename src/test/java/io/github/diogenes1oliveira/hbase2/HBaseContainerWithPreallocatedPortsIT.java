@@ -0,0 +1,20 @@
+package io.github.diogenes1oliveira.hbase2;
+
+import org.junit.jupiter.api.Test;
+import org.junitpioneer.jupiter.SetSystemProperty;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@SetSystemProperty(key = "hbase2-docker.port-mode", value = "preallocated")
+class HBaseContainerWithPreallocatedPortsIT extends AbstractHBaseIT {
+    @Test
+    void shouldListenOnTheSamePortsAsTheHost() {
+        assertThat(container.getPortMode(), equalTo(HBaseContainer.PortMode.PREALLOCATED));
+
+        String quorum = container.getProperties().getProperty("hbase.zookeeper.quorum");
+        int zookeeperPort = Integer.parseInt(quorum.split(":")[1]);
+        assertThat(container.getMappedPort(zookeeperPort), equalTo(zookeeperPort));
+    }
+
+}
@@ -0,0 +1,97 @@
+package io.github.diogenes1oliveira.hbase2;
+
+import io.github.diogenes1oliveira.hbase2.interfaces.RetryPolicy;
+import org.apache.hadoop.hbase.MasterNotRunningException;
+import org.apache.hadoop.hbase.TableNotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryPoliciesTest {
+    static final long MS = 1_000_000L;
+
+    @Test
+    void exponentialBackoff_ShouldGrowUpToTheCap() {
+        RetryPolicy policy = RetryPolicies.exponentialBackoff(Duration.ofMillis(10), Duration.ofMillis(100), 2.0, 0.0,
+                Duration.ofMinutes(1));
+
+        assertThat(policy.nextDelayNs(1, 0), equalTo(10 * MS));
+        assertThat(policy.nextDelayNs(2, 0), equalTo(20 * MS));
+        assertThat(policy.nextDelayNs(3, 0), equalTo(40 * MS));
+        assertThat(policy.nextDelayNs(5, 0), equalTo(100 * MS));
+        assertThat(policy.nextDelayNs(50, 0), equalTo(100 * MS));
+    }
+
+    @Test
+    void exponentialBackoff_ShouldApplyJitter() {
+        RetryPolicy policy = RetryPolicies.exponentialBackoff(Duration.ofMillis(100), Duration.ofMillis(100), 2.0, 0.5,
+                Duration.ofMinutes(1));
+
+        for (int i = 0; i < 100; ++i) {
+            long delayNs = policy.nextDelayNs(1, 0);
+            assertThat(delayNs, greaterThanOrEqualTo(50 * MS));
+            assertThat(delayNs, lessThanOrEqualTo(100 * MS));
+        }
+    }
+
+    @Test
+    void exponentialBackoff_ShouldRespectTheDeadline() {
+        RetryPolicy policy = RetryPolicies.exponentialBackoff(Duration.ofMillis(100), Duration.ofMillis(100), 2.0, 0.0,
+                Duration.ofSeconds(1));
+
+        assertThat(policy.nextDelayNs(1, 950 * MS), equalTo(50 * MS));
+        assertThat(policy.nextDelayNs(1, 1000 * MS), lessThan(0L));
+        assertThat(policy.nextDelayNs(1, 2000 * MS), lessThan(0L));
+    }
+
+    @Test
+    void exponentialBackoff_ShouldValidateArguments() {
+        Duration delay = Duration.ofMillis(10);
+        assertThrows(IllegalArgumentException.class, () -> {
+            RetryPolicies.exponentialBackoff(delay, delay, 0.5, 0.0, delay);
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            RetryPolicies.exponentialBackoff(delay, delay, 2.0, 1.5, delay);
+        });
+    }
+
+    @Test
+    void fixedDelay_ShouldNotGrow() {
+        RetryPolicy policy = RetryPolicies.fixedDelay(Duration.ofSeconds(1), Duration.ofMinutes(1));
+
+        assertThat(policy.nextDelayNs(1, 0), equalTo(1000 * MS));
+        assertThat(policy.nextDelayNs(10, 0), equalTo(1000 * MS));
+    }
+
+    @Test
+    void isRetriableHBaseException_ShouldRetryTransientFailures() {
+        assertTrue(RetryPolicies.isRetriableHBaseException(new IOException()));
+        assertTrue(RetryPolicies.isRetriableHBaseException(new ConnectException()));
+        assertTrue(RetryPolicies.isRetriableHBaseException(new SocketTimeoutException()));
+        assertTrue(RetryPolicies.isRetriableHBaseException(new MasterNotRunningException()));
+        assertTrue(RetryPolicies.isRetriableHBaseException(new UncheckedIOException(new ConnectException())));
+    }
+
+    @Test
+    void isRetriableHBaseException_ShouldNotRetryFatalFailures() {
+        assertFalse(RetryPolicies.isRetriableHBaseException(new TableNotFoundException("table")));
+        assertFalse(RetryPolicies.isRetriableHBaseException(new IOException(new TableNotFoundException("table"))));
+        assertFalse(RetryPolicies.isRetriableHBaseException(new InterruptedIOException()));
+        assertFalse(RetryPolicies.isRetriableHBaseException(new IllegalArgumentException()));
+        assertFalse(RetryPolicies.isRetriableHBaseException(new RuntimeException("bug")));
+    }
+}
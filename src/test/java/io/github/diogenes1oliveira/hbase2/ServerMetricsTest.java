@@ -0,0 +1,79 @@
+package io.github.diogenes1oliveira.hbase2;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+
+class ServerMetricsTest {
+    static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Test
+    void parse_ShouldReadTheMetricsOfEachBean() {
+        ServerMetrics metrics = ServerMetrics.parse(beans(100, 40, 10, 20.5), T0);
+
+        assertThat(metrics.getClusterRequests(), equalTo(7L));
+        assertThat(metrics.getTotalRequests(), equalTo(100L));
+        assertThat(metrics.getReadRequests(), equalTo(60L));
+        assertThat(metrics.getWriteRequests(), equalTo(40L));
+        assertThat(metrics.getMemStoreSizeBytes(), equalTo(1024L));
+        assertThat(metrics.getBlockCacheHitRatio(), closeTo(0.75, 1e-9));
+        assertThat(metrics.getWalSyncs(), equalTo(10L));
+        assertThat(metrics.getWalSyncMeanMs(), closeTo(20.5, 1e-9));
+        assertThat(metrics.getCompactionQueueLength(), equalTo(2L));
+        assertThat(metrics.getGcCount(), equalTo(3L));
+        assertThat(metrics.getGcTimeMs(), equalTo(45L));
+    }
+
+    @Test
+    void parse_ShouldDefaultMissingMetricsToZero() {
+        ServerMetrics metrics = ServerMetrics.parse(new HashMap<>(), T0);
+
+        assertThat(metrics.getTotalRequests(), equalTo(0L));
+        assertThat(metrics.getBlockCacheHitRatio(), equalTo(0.0));
+        assertThat(metrics.getWalSyncMeanMs(), equalTo(0.0));
+    }
+
+    @Test
+    void diff_ShouldSubtractCountersAndKeepTheLatestGauges() {
+        ServerMetrics before = ServerMetrics.parse(beans(100, 40, 10, 2.0), T0);
+        ServerMetrics after = ServerMetrics.parse(beans(150, 70, 30, 3.0), T0.plusSeconds(5));
+
+        ServerMetrics diff = ServerMetrics.diff(before, after);
+
+        assertThat(diff.getInterval(), equalTo(Duration.ofSeconds(5)));
+        assertThat(diff.getTotalRequests(), equalTo(50L));
+        assertThat(diff.getWriteRequests(), equalTo(30L));
+        assertThat(diff.getReadRequests(), equalTo(20L));
+        assertThat(diff.getMemStoreSizeBytes(), equalTo(1024L));
+        assertThat(diff.getWalSyncs(), equalTo(20L));
+        // windowed mean of the latest interval, not subtracted
+        assertThat(diff.getWalSyncMeanMs(), closeTo(3.0, 1e-9));
+        assertThat(diff.getGcTimeMs(), equalTo(0L));
+    }
+
+    static Map<String, String> beans(long totalRequests, long writeRequests, long walSyncs, double walSyncMean) {
+        Map<String, String> beans = new HashMap<>();
+        beans.put(ServerMetrics.MASTER_SERVER_BEAN, "{\"beans\": [{\"name\": \"" + ServerMetrics.MASTER_SERVER_BEAN
+                + "\", \"clusterRequests\": 7}]}");
+        beans.put(ServerMetrics.REGIONSERVER_SERVER_BEAN, "{\"beans\": [{"
+                + "\"totalRequestCount\": " + totalRequests + ", "
+                + "\"readRequestCount\": " + (totalRequests - writeRequests) + ", "
+                + "\"writeRequestCount\": " + writeRequests + ", "
+                + "\"memStoreSize\": 1024, "
+                + "\"blockCacheHitCount\": 300, "
+                + "\"blockCacheMissCount\": 100, "
+                + "\"compactionQueueLength\": 2}]}");
+        beans.put(ServerMetrics.REGIONSERVER_WAL_BEAN, "{\"beans\": [{"
+                + "\"SyncTime_num_ops\": " + walSyncs + ", "
+                + "\"SyncTime_mean\": " + walSyncMean + "}]}");
+        beans.put(ServerMetrics.JVM_BEAN, "{\"beans\": [{\"GcCount\": 3, \"GcTimeMillis\": 45}]}");
+        return beans;
+    }
+}
@@ -0,0 +1,101 @@
+package io.github.diogenes1oliveira.hbase2;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.empty;
+
+class StartupTimelineTest {
+    static final String CONTAINER_JSON = "[\n"
+            + "  {\"name\": \"entrypoint\", \"epochMs\": 1000},\n"
+            + "  {\"name\": \"init:01-load-dotenv.sh\", \"epochMs\": 1250},\n"
+            + "  {\"name\": \"hbase-exec\", \"epochMs\": 1400}\n"
+            + "]\n";
+
+    @Test
+    void parseContainerPhases_ShouldParseTheTimelineFile() {
+        List<StartupTimeline.Phase> phases = StartupTimeline.parseContainerPhases(CONTAINER_JSON);
+
+        assertThat(phases.size(), equalTo(3));
+        assertThat(phases.get(1).getSource(), equalTo(StartupTimeline.SOURCE_CONTAINER));
+        assertThat(phases.get(1).getName(), equalTo("init:01-load-dotenv.sh"));
+        assertThat(phases.get(1).getCompletedAt(), equalTo(Instant.ofEpochMilli(1250)));
+    }
+
+    @Test
+    void parseContainerPhases_ShouldIgnoreEmptyOrInvalidFiles() {
+        assertThat(StartupTimeline.parseContainerPhases(""), empty());
+        assertThat(StartupTimeline.parseContainerPhases("[\n]\n"), empty());
+        assertThat(StartupTimeline.parseContainerPhases("not json"), empty());
+    }
+
+    @Test
+    void getDurations_ShouldMergeSourcesByInstant() {
+        List<StartupTimeline.Phase> phases = new ArrayList<>(StartupTimeline.parseContainerPhases(CONTAINER_JSON));
+        phases.add(clientPhase("start-requested", 500));
+        phases.add(clientPhase("container-started", 2000));
+
+        StartupTimeline timeline = new StartupTimeline(phases);
+        Map<String, Duration> durations = timeline.getDurations();
+
+        assertThat(durations.keySet(), contains(
+                "client:start-requested",
+                "container:entrypoint",
+                "container:init:01-load-dotenv.sh",
+                "container:hbase-exec",
+                "client:container-started"));
+        assertThat(durations.get("client:start-requested"), equalTo(Duration.ZERO));
+        assertThat(durations.get("container:entrypoint"), equalTo(Duration.ofMillis(500)));
+        assertThat(durations.get("client:container-started"), equalTo(Duration.ofMillis(600)));
+        assertThat(timeline.getTotalDuration(), equalTo(Duration.ofMillis(1500)));
+    }
+
+    @Test
+    void since_ShouldDropThePhasesOfAPreviousStart() {
+        // the timeline file of a reused container is still the one of the start that created it
+        List<StartupTimeline.Phase> phases = new ArrayList<>(StartupTimeline.parseContainerPhases(CONTAINER_JSON));
+        phases.add(clientPhase("start-requested", 60_000));
+        phases.add(clientPhase("container-started", 60_300));
+
+        StartupTimeline timeline = new StartupTimeline(phases).since(Instant.ofEpochMilli(60_000));
+        Map<String, Duration> durations = timeline.getDurations();
+
+        assertThat(durations.keySet(), contains("client:start-requested", "client:container-started"));
+        assertThat(durations.get("client:start-requested"), equalTo(Duration.ZERO));
+        assertThat(timeline.getTotalDuration(), equalTo(Duration.ofMillis(300)));
+    }
+
+    @Test
+    void toJson_ShouldIncludeTheDurationOfEachPhase() {
+        StartupTimeline timeline = new StartupTimeline(Arrays.asList(
+                clientPhase("start-requested", 500),
+                clientPhase("container-started", 2000)));
+
+        String json = timeline.toJson();
+
+        assertThat(json, containsString(
+                "{\"source\": \"client\", \"name\": \"start-requested\", \"epochMs\": 500, \"durationMs\": 0}"));
+        assertThat(json, containsString(
+                "{\"source\": \"client\", \"name\": \"container-started\", \"epochMs\": 2000, \"durationMs\": 1500}"));
+    }
+
+    @Test
+    void empty_ShouldHaveNoDuration() {
+        assertThat(StartupTimeline.EMPTY.getTotalDuration(), equalTo(Duration.ZERO));
+        assertThat(StartupTimeline.EMPTY.toJson(), equalTo("[\n]\n"));
+    }
+
+    static StartupTimeline.Phase clientPhase(String name, long epochMs) {
+        return new StartupTimeline.Phase(StartupTimeline.SOURCE_CLIENT, name, Instant.ofEpochMilli(epochMs));
+    }
+}
@@ -0,0 +1,157 @@
+package io.github.diogenes1oliveira.hbase2.docker;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MetricsExporterTest {
+    static String output;
+    static List<String> lines;
+
+    @BeforeAll
+    static void scrapeCapturedPayload() throws IOException {
+        try (InputStream stream = MetricsExporterTest.class.getResourceAsStream("/jmx-regionserver.json")) {
+            output = MetricsExporter.toPrometheus(new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        lines = Arrays.asList(output.split("\n"));
+    }
+
+    @Test
+    void toPrometheus_ShouldExportNumbersAndBooleans() {
+        assertThat(lines, hasItem("hadoop_hbase_regionserver_server_totalrequestcount 1234"));
+        assertThat(lines, hasItem("hadoop_hbase_regionserver_server_memstoresize 1500"));
+        assertThat(lines, hasItem("hadoop_hbase_regionserver_server_blockcachehitcachingratio 0.25"));
+        assertThat(lines, hasItem("hadoop_hbase_regionserver_server_isactive 1"));
+        assertThat(lines, hasItem("hadoop_hbase_regionserver_server_isaborted 0"));
+        assertThat(lines, hasItem("# TYPE hadoop_hbase_regionserver_server_regioncount untyped"));
+    }
+
+    @Test
+    void toPrometheus_ShouldExportNonFiniteValues() {
+        assertThat(lines, hasItem("hadoop_hbase_regionserver_wal_synctime_mean NaN"));
+        assertThat(lines, hasItem("hadoop_hbase_regionserver_wal_synctime_max +Inf"));
+        assertThat(lines, hasItem("hadoop_hbase_regionserver_wal_synctime_min -Inf"));
+    }
+
+    @Test
+    void toPrometheus_ShouldSkipStringsAndNestedValues() {
+        assertThat(output, not(containsString("tag_hostname")));
+        assertThat(output, not(containsString("modelertype")));
+        assertThat(output, not(containsString("lastgcinfo")));
+        assertThat(output, not(containsString("memorypoolnames")));
+        assertThat(output, not(containsString("objectname")));
+        assertThat(lines, hasItem("java_lang_garbagecollector_g1_young_generation_collectiontime 21"));
+    }
+
+    @Test
+    void toPrometheus_ShouldSanitizeNames() {
+        assertThat(lines, hasItem("hadoop_hbase_regionserver_server_get_99_9th_percentile -3"));
+        assertThat(lines, hasItem("_1st_domain_empty_value 7"));
+    }
+
+    @Test
+    void toPrometheus_ShouldOnlyExportTheFirstOfDuplicateNames() {
+        assertThat(countLines("java_lang_garbagecollector_g1_young_generation_collectioncount "), equalTo(1L));
+        assertThat(lines, hasItem("java_lang_garbagecollector_g1_young_generation_collectioncount 5"));
+        assertThat(countLines("java_lang_memorypool_code_cache_usagethreshold "), equalTo(1L));
+        assertThat(lines, hasItem("java_lang_memorypool_code_cache_usagethreshold 1"));
+    }
+
+    @Test
+    void toPrometheus_ShouldWriteEachMetricOnce() {
+        for (int i = 0; i < lines.size(); i += 2) {
+            String name = lines.get(i).split(" ")[2];
+            assertThat(lines.get(i), equalTo("# TYPE " + name + " untyped"));
+            assertThat(lines.get(i + 1), containsString(name + " "));
+            assertThat(countLines(name + " "), equalTo(1L));
+        }
+    }
+
+    @Test
+    void toPrometheus_ShouldRejectPayloadsWithoutBeans() {
+        assertThrows(IllegalArgumentException.class, () -> MetricsExporter.toPrometheus("{\"other\": []}"));
+        assertThrows(IllegalArgumentException.class, () -> MetricsExporter.toPrometheus("[]"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void parse_ShouldHandleEscapes() {
+        String json = "{\"a\\\"b\": \"\\\"\\\\\\/\\b\\f\\n\\r\\t\\u00e9\\u0041\"}";
+
+        Map<String, Object> object = (Map<String, Object>) new MetricsExporter.JsonParser(json).parse();
+
+        assertThat(object.get("a\"b"), equalTo("\"\\/\b\f\n\r\t\u00e9A"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void parse_ShouldHandleNestedArrays() {
+        List<Object> array = (List<Object>) new MetricsExporter.JsonParser("[1, [2, [], [3.5e1]], {\"k\": [true]}]")
+                .parse();
+
+        assertThat(array.get(0), equalTo(1.0));
+        assertThat((List<Object>) array.get(1), contains(2.0, Arrays.asList(), Arrays.asList(35.0)));
+        assertThat(((Map<String, Object>) array.get(2)).get("k"), equalTo(Arrays.asList(true)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "{", "{\"a\": }", "{\"a\": 1,}", "[1 2]", "\"unterminated", "{\"a\": tru}", "{} {}",
+            "\"trailing\\", "\"\\u12\"", "\"\\uzzzz\""})
+    void parse_ShouldRejectInvalidJson(String json) {
+        assertThrows(IllegalArgumentException.class, () -> new MetricsExporter.JsonParser(json).parse());
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "'Hadoop:service=HBase,name=Master,sub=Server', hadoop_hbase_master_server",
+            "java.lang:type=Memory, java_lang_memory",
+            "no-properties, no_properties",
+            "2nd:type=x, _2nd_x",
+    })
+    void metricPrefix_ShouldJoinTheDomainAndPropertyValues(String beanName, String expected) {
+        assertThat(MetricsExporter.metricPrefix(beanName), equalTo(expected));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "Get_99.9th_percentile, get_99_9th_percentile",
+            "tag.Context, tag_context",
+            "\u00c9COLE, _cole",
+            "'', _",
+            "9lives, _9lives",
+    })
+    void sanitize_ShouldOnlyKeepValidCharacters(String name, String expected) {
+        assertThat(MetricsExporter.sanitize(name), equalTo(expected));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "3.0, 3",
+            "-0.5, -0.5",
+            "1.0E20, 1.0E20",
+    })
+    void formatNumber_ShouldPrintIntegersWithoutFraction(double value, String expected) {
+        assertThat(MetricsExporter.formatNumber(value), equalTo(expected));
+    }
+
+    static long countLines(String prefix) {
+        return lines.stream().filter(line -> line.startsWith(prefix)).count();
+    }
+}
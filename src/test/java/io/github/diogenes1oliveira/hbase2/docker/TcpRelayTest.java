@@ -0,0 +1,208 @@
+package io.github.diogenes1oliveira.hbase2.docker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TcpRelayTest {
+    static final int TIMEOUT_MS = 10_000;
+
+    TcpRelay relay;
+    Thread relayThread;
+    ServerSocket upstream;
+    int relayPort;
+    int unresolvablePort;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        upstream = new ServerSocket(0);
+        upstream.setSoTimeout(TIMEOUT_MS);
+        relay = new TcpRelay();
+        relayPort = relay.listen(0, "localhost", upstream.getLocalPort());
+        unresolvablePort = relay.listen(0, "unresolvable.invalid", upstream.getLocalPort());
+
+        relayThread = new Thread(() -> {
+            try {
+                relay.run();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }, "tcp-relay");
+        relayThread.setDaemon(true);
+        relayThread.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        relay.close();
+        relayThread.join(TIMEOUT_MS);
+        upstream.close();
+    }
+
+    @Test
+    void parse_ShouldDefaultToLocalhost() {
+        TcpRelay.Mapping mapping = TcpRelay.Mapping.parse("16000:26000");
+
+        assertThat(mapping.listenPort, equalTo(16000));
+        assertThat(mapping.targetHost, equalTo("localhost"));
+        assertThat(mapping.targetPort, equalTo(26000));
+    }
+
+    @Test
+    void parse_ShouldAcceptRemoteHosts() {
+        TcpRelay.Mapping mapping = TcpRelay.Mapping.parse("16020:hbase-rs-1.example:16020");
+
+        assertThat(mapping.listenPort, equalTo(16020));
+        assertThat(mapping.targetHost, equalTo("hbase-rs-1.example"));
+        assertThat(mapping.targetPort, equalTo(16020));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "16000", "16000:", ":16000", "a:16000", "16000:bad_host:16000", "16000:70000",
+            "1:2:3:4"})
+    void parse_ShouldRejectInvalidSpecs(String spec) {
+        assertThrows(IllegalArgumentException.class, () -> TcpRelay.Mapping.parse(spec));
+    }
+
+    @Test
+    void shouldKeepRelayingAfterATargetFailsToResolve() throws Exception {
+        try (Socket client = new Socket("127.0.0.1", unresolvablePort)) {
+            client.setSoTimeout(TIMEOUT_MS);
+            assertThat(client.getInputStream().read(), equalTo(-1));
+        }
+
+        shouldPropagateHalfCloses();
+    }
+
+    @Test
+    void shouldPropagateHalfCloses() throws Exception {
+        CompletableFuture<String> received = CompletableFuture.supplyAsync(() -> {
+            try (Socket server = upstream.accept()) {
+                server.setSoTimeout(TIMEOUT_MS);
+                // only returns once the client half-close is propagated
+                String request = readAll(server.getInputStream());
+                server.getOutputStream().write(("pong:" + request).getBytes(StandardCharsets.UTF_8));
+                server.shutdownOutput();
+                return request;
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        try (Socket client = connect()) {
+            client.getOutputStream().write("ping".getBytes(StandardCharsets.UTF_8));
+            client.shutdownOutput();
+
+            // the client side is still open for reading after its own half-close
+            assertThat(readAll(client.getInputStream()), equalTo("pong:ping"));
+        }
+        assertThat(received.get(TIMEOUT_MS, TimeUnit.MILLISECONDS), equalTo("ping"));
+    }
+
+    @Test
+    void shouldStopReadingWhileThePeerDoesNotConsume() throws Exception {
+        // generous bound for the socket buffers on both sides of the relay plus its own buffer
+        long maxBuffered = 64L * 1024 * 1024;
+        byte[] chunk = new byte[TcpRelay.BUFFER_SIZE];
+        for (int i = 0; i < chunk.length; ++i) {
+            chunk[i] = (byte) i;
+        }
+
+        try (SocketChannel client = SocketChannel.open(new InetSocketAddress("127.0.0.1", relayPort));
+             Socket server = upstream.accept()) {
+            client.configureBlocking(false);
+            long written = writeUntilStalled(client, chunk, maxBuffered);
+
+            assertThat(written, greaterThan(0L));
+            assertThat(written, lessThan(maxBuffered));
+
+            // once the server consumes, everything written so far arrives in order
+            server.setSoTimeout(TIMEOUT_MS);
+            InputStream input = server.getInputStream();
+            byte[] received = new byte[chunk.length];
+            for (long read = 0; read < written; read += chunk.length) {
+                int count = (int) Math.min(chunk.length, written - read);
+                readFully(input, received, count);
+                assertThat(Arrays.copyOf(received, count), equalTo(Arrays.copyOf(chunk, count)));
+            }
+        }
+    }
+
+    Socket connect() throws IOException {
+        Socket socket = new Socket("127.0.0.1", relayPort);
+        socket.setSoTimeout(TIMEOUT_MS);
+        return socket;
+    }
+
+    /**
+     * Writes chunks until the writes stop being accepted for a while, returning the number of bytes written
+     */
+    static long writeUntilStalled(SocketChannel channel, byte[] chunk, long maxBytes) throws Exception {
+        ByteBuffer buffer = ByteBuffer.wrap(chunk);
+        long written = 0;
+        long stalledSince = -1;
+
+        while (written < maxBytes) {
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+            }
+            int count = channel.write(buffer);
+            written += count;
+
+            if (count > 0) {
+                stalledSince = -1;
+            } else if (stalledSince < 0) {
+                stalledSince = System.nanoTime();
+            } else if (System.nanoTime() - stalledSince > TimeUnit.MILLISECONDS.toNanos(500)) {
+                return written;
+            } else {
+                Thread.sleep(10);
+            }
+        }
+
+        return written;
+    }
+
+    static void readFully(InputStream input, byte[] buffer, int length) throws IOException {
+        for (int offset = 0; offset < length; ) {
+            int count = input.read(buffer, offset, length - offset);
+            if (count < 0) {
+                throw new IOException("unexpected end of stream after " + offset + " bytes");
+            }
+            offset += count;
+        }
+    }
+
+    static String readAll(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int count;
+
+        while ((count = input.read(buffer)) >= 0) {
+            output.write(buffer, 0, count);
+        }
+
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
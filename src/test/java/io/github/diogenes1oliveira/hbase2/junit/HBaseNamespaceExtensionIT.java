@@ -0,0 +1,53 @@
+package io.github.diogenes1oliveira.hbase2.junit;
+
+import io.github.diogenes1oliveira.hbase2.HBaseNamespace;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Table;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+
+@ExtendWith(HBaseNamespaceExtension.class)
+@Execution(ExecutionMode.CONCURRENT)
+class HBaseNamespaceExtensionIT {
+    private final HBaseNamespace classNamespace;
+
+    HBaseNamespaceExtensionIT(HBaseNamespace classNamespace) {
+        this.classNamespace = classNamespace;
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "first", "second", "third", "fourth" })
+    void shouldIsolateTablesWithTheSameName(String value, HBaseNamespace namespace, Connection connection)
+            throws IOException {
+        byte[] family = "f".getBytes(StandardCharsets.UTF_8);
+        byte[] row = "row".getBytes(StandardCharsets.UTF_8);
+        TableName tableName = namespace.createTable("table", "f");
+
+        try (Table table = connection.getTable(tableName)) {
+            table.put(new Put(row).addColumn(family, family, value.getBytes(StandardCharsets.UTF_8)));
+            byte[] stored = table.get(new Get(row)).getValue(family, family);
+            assertThat(new String(stored, StandardCharsets.UTF_8), equalTo(value));
+        }
+    }
+
+    @Test
+    void shouldUseAnotherNamespaceForTheClass(HBaseNamespace namespace) {
+        assertThat(namespace.getName(), startsWith("HBaseNamespaceExtensionIT_"));
+        assertThat(namespace.getName(), not(equalTo(classNamespace.getName())));
+    }
+}
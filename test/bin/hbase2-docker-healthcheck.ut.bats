@@ -0,0 +1,47 @@
+#!/usr/bin/env bats
+
+load 'setup'
+
+setup() {
+    # the processes of the image, with the ports in $FAKE_LISTENING_PORTS accepting connections
+    mkdir -p "$BATS_TEST_TMPDIR/bin"
+    cat > "$BATS_TEST_TMPDIR/bin/nc" <<'eof'
+#!/usr/bin/env bash
+[[ " $FAKE_LISTENING_PORTS " = *" ${@: -1} "* ]]
+eof
+    cat > "$BATS_TEST_TMPDIR/bin/hbase" <<'eof'
+#!/usr/bin/env bash
+echo '1 active master, 0 backup masters, 1 servers, 0 dead, 2.0000 average load'
+eof
+    chmod +x "$BATS_TEST_TMPDIR/bin/"*
+    export PATH="$BATS_TEST_TMPDIR/bin:$PATH"
+
+    # defaults of the image
+    export HBASE_MANAGES_ZK=true
+    export HBASE_SITE_HBASE_CLUSTER_DISTRIBUTED=false
+    export HBASE_SITE_HBASE_ZOOKEEPER_PROPERTY_CLIENT___PORT=2181
+    export HBASE_SITE_HBASE_MASTER_PORT=16000
+    export HBASE_SITE_HBASE_REGIONSERVER_PORT=16020
+    export HBASE_STATUS_PORT=17001
+    export HBASE_METRICS_PORT=17002
+    export HBASE_HEALTHCHECK_EXPECTED_STATUS='1 active master, 0 backup masters, 1 servers, 0 dead'
+    export HBASE_BACKGROUND_PIDS_FILE="$BATS_TEST_TMPDIR/pids"
+
+    export FAKE_LISTENING_PORTS='2181 16000 16020'
+}
+
+@test "should be healthy at build time without the metrics exporter" {
+    HBASE_STATUS_PORT='' HBASE_METRICS_PORT='' run bin/hbase2-docker-healthcheck
+    assert_success
+
+    assert_output --partial 'master(16000): UP'
+    assert_output --partial 'hbase(status): UP'
+    refute_output --partial 'metrics'
+}
+
+@test "should be unhealthy at runtime without the metrics exporter" {
+    HBASE_STATUS_PORT='' run bin/hbase2-docker-healthcheck
+    assert_failure
+
+    assert_output --partial 'metrics(17002): DOWN'
+}
@@ -0,0 +1,43 @@
+#!/usr/bin/env bats
+
+load 'setup'
+
+setup() {
+    mkdir -p "$BATS_TEST_TMPDIR/bin"
+    export PATH="$BATS_TEST_TMPDIR/bin:$PATH"
+    export HBASE_STATUS_PORT=17001
+    export HBASE_METRICS_PORT=17002
+}
+
+fake_healthcheck() {
+    printf '#!/usr/bin/env bash\n%s\n' "$1" > "$BATS_TEST_TMPDIR/bin/hbase2-docker-healthcheck"
+    chmod +x "$BATS_TEST_TMPDIR/bin/hbase2-docker-healthcheck"
+}
+
+@test "should not wait for the processes of the healthcheck server" {
+    fake_healthcheck '[ -z "$HBASE_STATUS_PORT" ] && [ -z "$HBASE_METRICS_PORT" ]'
+
+    run bin/hbase2-docker-wait-healthy "$$" 5
+    assert_success
+
+    assert_output --partial 'HBase is healthy'
+}
+
+@test "should fail once HBase exits" {
+    fake_healthcheck 'exit 1'
+    true &
+    pid="$!"
+    wait "$pid"
+
+    run bin/hbase2-docker-wait-healthy "$pid" 5
+    assert_failure 2
+
+    assert_output --partial 'HBase exited before becoming healthy'
+}
+
+@test "should reject invalid PIDs" {
+    run bin/hbase2-docker-wait-healthy '' 5
+    assert_failure 1
+
+    assert_output --partial "invalid PID ''"
+}
@@ -1,3 +1,39 @@
 #!/usr/bin/env bats
 
 load 'setup'
+
+@test "should reject invalid specs before starting any relay" {
+    pids_file="$BATS_TEST_TMPDIR/pids"
+
+    run --separate-stderr bin/tcp-map-ports --relay=socat --pids-file "$pids_file" 16000:26000 16000:bad_host:26000
+    assert_failure
+
+    [[ "$stderr" = *"invalid mapping spec '16000:bad_host:26000'"* ]]
+    [ ! -e "$pids_file" ]
+}
+
+@test "should reject invalid relays" {
+    run bin/tcp-map-ports --relay=other 16000:26000
+    assert_failure
+
+    assert_output --partial "invalid relay 'other'"
+}
+
+@test "should not map a local port to itself" {
+    pids_file="$BATS_TEST_TMPDIR/pids"
+
+    run bin/tcp-map-ports --relay=socat --pids-file "$pids_file" 16000:16000 16010:127.0.0.1:16010
+    assert_success
+
+    assert_output --partial ':16000 is equal to local target port'
+    assert_output --partial ':16010 is equal to local target port'
+    [ ! -e "$pids_file" ]
+}
+
+@test "should fall back to socat without the tools classpath" {
+    HBASE2_DOCKER_TOOLS_CLASSPATH="$BATS_TEST_TMPDIR/missing" run bin/tcp-map-ports --relay=nio
+    assert_success
+
+    assert_output --partial 'falling back to socat'
+    assert_output --partial 'no ports to map'
+}
@@ -0,0 +1,429 @@
+package io.github.diogenes1oliveira.hbase2.docker;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Long-lived healthcheck server that refreshes the status of the container components on a background schedule
+ * <p>
+ * Requests are answered from the last report, so they never wait for the checks to run. The components are the same
+ * ones checked by bin/hbase2-docker-healthcheck: the ZooKeeper, master and region server ports, the background
+ * processes and the HBase status.
+ * <p>
+ * Endpoints:
+ * <ul>
+ *     <li>GET / on $HBASE_HEALTHCHECK_PORT: text report, HTTP 200 if healthy or 503 otherwise</li>
+ *     <li>GET /?format=json on $HBASE_HEALTHCHECK_PORT: JSON report with the latency of each check</li>
+ *     <li>GET /status on 127.0.0.1:$HBASE_STATUS_PORT: HBase status line, see {@link StatusProbe}</li>
+ *     <li>GET /metrics on $HBASE_METRICS_PORT: JMX beans in the Prometheus text format, see {@link MetricsExporter}</li>
+ * </ul>
+ * The checks run every $HBASE_STATUS_INTERVAL_MS milliseconds (default: 1000).
+ * <p>
+ * The first time the master answers, becomes active, completes its initialization and the container becomes healthy,
+ * the phase is recorded in the startup timeline through bin/hbase2-docker-timeline.
+ */
+public class HealthcheckServer {
+    static final int TIMEOUT_MS = 1000;
+    static final String PHASE_MASTER_UP = "master-up";
+    static final String PHASE_MASTER_ACTIVE = "master-active";
+    static final String PHASE_MASTER_INITIALIZED = "master-initialized";
+    static final String PHASE_HEALTHY = "healthy";
+
+    private final List<Check> checks;
+    private final StatusProbe probe;
+    private final Set<String> recordedPhases = new HashSet<>();
+    private volatile Report report = new Report(Collections.emptyList(), 0);
+
+    public HealthcheckServer(List<Check> checks, StatusProbe probe) {
+        this.checks = checks;
+        this.probe = probe;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int masterInfoPort = Integer.parseInt(StatusProbe.requireEnv("HBASE_SITE_HBASE_MASTER_INFO_PORT"));
+        long intervalMs = Long.parseLong(StatusProbe.getEnv("HBASE_STATUS_INTERVAL_MS", "1000"));
+        String healthcheckPort = StatusProbe.getEnv("HBASE_HEALTHCHECK_PORT", "");
+        String statusPort = StatusProbe.getEnv("HBASE_STATUS_PORT", "");
+        String metricsPort = StatusProbe.getEnv("HBASE_METRICS_PORT", "");
+
+        StatusProbe probe = new StatusProbe(masterInfoPort);
+        HealthcheckServer server = new HealthcheckServer(checksFromEnv(probe), probe);
+        server.start(intervalMs);
+
+        if (!healthcheckPort.isEmpty()) {
+            server.serveReport(new InetSocketAddress(Integer.parseInt(healthcheckPort)));
+            System.err.println("INFO: healthcheck server running on port " + healthcheckPort);
+        }
+        if (!statusPort.isEmpty()) {
+            server.serveStatus(new InetSocketAddress("127.0.0.1", Integer.parseInt(statusPort)));
+            System.err.println("INFO: status probe running on 127.0.0.1:" + statusPort);
+        }
+        if (!metricsPort.isEmpty()) {
+            serveMetrics(new InetSocketAddress(Integer.parseInt(metricsPort)), new MetricsExporter(jmxPortFromEnv()));
+            System.err.println("INFO: metrics exporter running on port " + metricsPort);
+        }
+    }
+
+    /**
+     * Info port serving the /jmx of the local process, the region server one in a region server container of a
+     * distributed cluster
+     */
+    static int jmxPortFromEnv() {
+        if (!"false".equals(System.getenv("HBASE_SITE_HBASE_CLUSTER_DISTRIBUTED"))
+                && "regionserver".equals(StatusProbe.getEnv("HBASE_COMMAND", ""))) {
+            return Integer.parseInt(StatusProbe.requireEnv("HBASE_SITE_HBASE_REGIONSERVER_INFO_PORT"));
+        }
+
+        return Integer.parseInt(StatusProbe.requireEnv("HBASE_SITE_HBASE_MASTER_INFO_PORT"));
+    }
+
+    /**
+     * Same components as bin/hbase2-docker-healthcheck, driven by the same environment variables
+     */
+    static List<Check> checksFromEnv(StatusProbe probe) {
+        List<Check> checks = new ArrayList<>();
+
+        if ("true".equals(System.getenv("HBASE_MANAGES_ZK"))) {
+            String zookeeperPort = StatusProbe.requireEnv("HBASE_SITE_HBASE_ZOOKEEPER_PROPERTY_CLIENT___PORT");
+            checks.add(portCheck("zookeeper", zookeeperPort));
+        }
+        if ("false".equals(System.getenv("HBASE_SITE_HBASE_CLUSTER_DISTRIBUTED"))) {
+            checks.add(portCheck("master", StatusProbe.requireEnv("HBASE_SITE_HBASE_MASTER_PORT")));
+            checks.add(portCheck("regionserver", StatusProbe.requireEnv("HBASE_SITE_HBASE_REGIONSERVER_PORT")));
+        } else {
+            // each container of a distributed cluster only runs the process in $HBASE_COMMAND
+            switch (StatusProbe.getEnv("HBASE_COMMAND", "")) {
+                case "zookeeper":
+                    String zookeeperPort = StatusProbe.requireEnv("HBASE_SITE_HBASE_ZOOKEEPER_PROPERTY_CLIENT___PORT");
+                    checks.add(portCheck("zookeeper", zookeeperPort));
+                    break;
+                case "master":
+                    checks.add(portCheck("master", StatusProbe.requireEnv("HBASE_SITE_HBASE_MASTER_PORT")));
+                    break;
+                case "regionserver":
+                    String regionServerPort = StatusProbe.requireEnv("HBASE_SITE_HBASE_REGIONSERVER_PORT");
+                    checks.add(portCheck("regionserver", regionServerPort));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        String metricsPort = StatusProbe.getEnv("HBASE_METRICS_PORT", "");
+        if (!metricsPort.isEmpty()) {
+            checks.add(portCheck("metrics", metricsPort));
+        }
+
+        String pidsFile = StatusProbe.getEnv("HBASE_BACKGROUND_PIDS_FILE", "");
+        if (!pidsFile.isEmpty()) {
+            checks.add(pidsCheck(pidsFile));
+        }
+
+        String expectedStatus = StatusProbe.getEnv("HBASE_HEALTHCHECK_EXPECTED_STATUS", "");
+        if (!expectedStatus.isEmpty()) {
+            checks.add(statusCheck(probe, expectedStatus));
+        }
+
+        return checks;
+    }
+
+    public void start(long intervalMs) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        scheduler.scheduleWithFixedDelay(this::refresh, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void serveReport(InetSocketAddress address) throws IOException {
+        HttpServer server = HttpServer.create(address, 64);
+        server.createContext("/", exchange -> {
+            Report current = report;
+            boolean json = exchange.getRequestURI().getQuery() != null
+                    && exchange.getRequestURI().getQuery().contains("format=json");
+
+            if (json) {
+                respond(exchange, current.isHealthy(), "application/json; charset=UTF-8", current.toJson());
+            } else {
+                respond(exchange, current.isHealthy(), "text/plain; charset=UTF-8", current.toText());
+            }
+        });
+        server.setExecutor(Executors.newFixedThreadPool(2));
+        server.start();
+    }
+
+    public void serveStatus(InetSocketAddress address) throws IOException {
+        HttpServer server = HttpServer.create(address, 16);
+        server.createContext("/status", exchange -> {
+            StatusProbe.Status status = probe.getStatus();
+            respond(exchange, status.healthy, "text/plain; charset=UTF-8", status.toText());
+        });
+        server.start();
+    }
+
+    /**
+     * Serves the metrics scraped on each request, so they're as fresh as the scraper wants them to be
+     */
+    public static void serveMetrics(InetSocketAddress address, MetricsExporter exporter) throws IOException {
+        HttpServer server = HttpServer.create(address, 16);
+        server.createContext("/metrics", exchange -> {
+            String body;
+            boolean scraped;
+
+            try {
+                body = exporter.scrape();
+                scraped = true;
+            } catch (IOException | RuntimeException e) {
+                body = "# failed to scrape the JMX beans: " + e.toString().replace('\n', ' ') + "\n";
+                scraped = false;
+            }
+            respond(exchange, scraped, MetricsExporter.CONTENT_TYPE, body);
+        });
+        server.start();
+    }
+
+    public Report getReport() {
+        return report;
+    }
+
+    void refresh() {
+        List<Result> results = new ArrayList<>();
+
+        for (Check check : checks) {
+            results.addAll(check.run());
+        }
+
+        report = new Report(results, System.currentTimeMillis());
+
+        StatusProbe.Status status = probe.getStatus();
+        recordPhase(PHASE_MASTER_UP, status.reachable);
+        recordPhase(PHASE_MASTER_ACTIVE, status.activeMaster);
+        recordPhase(PHASE_MASTER_INITIALIZED, status.activeMaster && status.initialized);
+        recordPhase(PHASE_HEALTHY, report.isHealthy());
+    }
+
+    /**
+     * Records the phase in the startup timeline the first time the condition is met
+     */
+    private void recordPhase(String phase, boolean reached) {
+        if (!reached || !recordedPhases.add(phase)) {
+            return;
+        }
+
+        try {
+            Process process = new ProcessBuilder("hbase2-docker-timeline", phase).inheritIO().start();
+            if (!process.waitFor(TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                process.destroy();
+                System.err.println("WARN: timed out recording startup phase " + phase);
+            }
+        } catch (IOException e) {
+            System.err.println("WARN: failed to record startup phase " + phase + ": " + e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, boolean healthy, String contentType, String body)
+            throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(healthy ? 200 : 503, bytes.length);
+        try (OutputStream stream = exchange.getResponseBody()) {
+            stream.write(bytes);
+        }
+    }
+
+    static Check portCheck(String component, String port) {
+        String name = component + "(" + port + ")";
+
+        return () -> Collections.singletonList(timed(name, () -> {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress("127.0.0.1", Integer.parseInt(port)), TIMEOUT_MS);
+                return null;
+            } catch (IOException e) {
+                return e.toString();
+            }
+        }));
+    }
+
+    static Check pidsCheck(String pidsFile) {
+        return () -> {
+            List<Result> results = new ArrayList<>();
+            List<String> pids;
+
+            try {
+                pids = Files.readAllLines(Paths.get(pidsFile));
+            } catch (IOException e) {
+                // no background processes were started
+                return results;
+            }
+
+            for (String pid : pids) {
+                if (!pid.trim().isEmpty()) {
+                    results.add(timed("pid(" + pid.trim() + ")", () -> {
+                        return new File("/proc/" + pid.trim()).exists() ? null : "process is not running";
+                    }));
+                }
+            }
+            return results;
+        };
+    }
+
+    static Check statusCheck(StatusProbe probe, String expectedStatus) {
+        return () -> Collections.singletonList(timed("hbase(status)", () -> {
+            String text = probe.refresh().toText();
+            return text.contains(expectedStatus) ? null : text.trim();
+        }));
+    }
+
+    /**
+     * Runs the check, which returns null if the component is up or the failure detail otherwise
+     */
+    static Result timed(String name, Supplier<String> check) {
+        long t0 = System.nanoTime();
+        String failure;
+
+        try {
+            failure = check.get();
+        } catch (RuntimeException e) {
+            failure = e.toString();
+        }
+
+        return new Result(name, failure == null, failure, System.nanoTime() - t0);
+    }
+
+    /**
+     * Check of one or more components
+     */
+    public interface Check {
+        List<Result> run();
+    }
+
+    public static class Result {
+        final String name;
+        final boolean up;
+        final String detail;
+        final long latencyNs;
+
+        Result(String name, boolean up, String detail, long latencyNs) {
+            this.name = name;
+            this.up = up;
+            this.detail = detail;
+            this.latencyNs = latencyNs;
+        }
+    }
+
+    public static class Report {
+        final List<Result> results;
+        final long checkedAtMs;
+
+        Report(List<Result> results, long checkedAtMs) {
+            this.results = results;
+            this.checkedAtMs = checkedAtMs;
+        }
+
+        /**
+         * Healthy only after the first refresh and if all the components are up
+         */
+        boolean isHealthy() {
+            if (checkedAtMs == 0) {
+                return false;
+            }
+            for (Result result : results) {
+                if (!result.up) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Same format as bin/hbase2-docker-healthcheck
+         */
+        String toText() {
+            StringBuilder builder = new StringBuilder();
+            for (Result result : results) {
+                builder.append(result.name).append(result.up ? ": UP" : ": DOWN").append('\n');
+            }
+            return builder.toString();
+        }
+
+        String toJson() {
+            StringBuilder builder = new StringBuilder();
+            builder.append("{\"healthy\":").append(isHealthy());
+            builder.append(",\"checkedAt\":");
+            appendJsonString(builder, checkedAtMs == 0 ? null : Instant.ofEpochMilli(checkedAtMs).toString());
+            builder.append(",\"ageMs\":").append(checkedAtMs == 0 ? -1 : System.currentTimeMillis() - checkedAtMs);
+            builder.append(",\"components\":[");
+
+            for (int i = 0; i < results.size(); ++i) {
+                Result result = results.get(i);
+                if (i > 0) {
+                    builder.append(',');
+                }
+                builder.append("{\"name\":");
+                appendJsonString(builder, result.name);
+                builder.append(",\"up\":").append(result.up);
+                builder.append(",\"latencyMs\":").append(String.format(Locale.ROOT, "%.3f", result.latencyNs / 1e6));
+                builder.append(",\"detail\":");
+                appendJsonString(builder, result.detail);
+                builder.append('}');
+            }
+
+            return builder.append("]}\n").toString();
+        }
+    }
+
+    static void appendJsonString(StringBuilder builder, String value) {
+        if (value == null) {
+            builder.append("null");
+            return;
+        }
+
+        builder.append('"');
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+            }
+        }
+        builder.append('"');
+    }
+}
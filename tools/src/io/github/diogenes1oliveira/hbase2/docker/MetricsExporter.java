@@ -0,0 +1,325 @@
+package io.github.diogenes1oliveira.hbase2.docker;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Exports the JMX beans of the HBase JVM in the Prometheus text format, see {@link HealthcheckServer}
+ * <p>
+ * The beans are read from the /jmx endpoint of the HBase info server on each scrape, so nothing runs between scrapes.
+ * Every numeric or boolean attribute of a bean becomes an untyped metric named after the bean and the attribute, e.g.
+ * the attribute totalRequestCount of Hadoop:service=HBase,name=RegionServer,sub=Server is exported as
+ * hadoop_hbase_regionserver_server_totalrequestcount. Nested and string attributes are skipped.
+ */
+public class MetricsExporter {
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=UTF-8";
+
+    private final URL jmxUrl;
+
+    public MetricsExporter(int infoPort) throws IOException {
+        this.jmxUrl = new URL("http://127.0.0.1:" + infoPort + "/jmx");
+    }
+
+    public String scrape() throws IOException {
+        return toPrometheus(StatusProbe.fetch(jmxUrl));
+    }
+
+    @SuppressWarnings("unchecked")
+    static String toPrometheus(String jmxJson) {
+        Object root = new JsonParser(jmxJson).parse();
+        if (!(root instanceof Map) || !(((Map<String, Object>) root).get("beans") instanceof List)) {
+            throw new IllegalArgumentException("no beans in the JMX response");
+        }
+
+        StringBuilder builder = new StringBuilder();
+        Set<String> exported = new HashSet<>();
+
+        for (Object bean : (List<Object>) ((Map<String, Object>) root).get("beans")) {
+            if (!(bean instanceof Map)) {
+                continue;
+            }
+            Map<String, Object> attributes = (Map<String, Object>) bean;
+            Object beanName = attributes.get("name");
+            if (!(beanName instanceof String)) {
+                continue;
+            }
+            String prefix = metricPrefix((String) beanName);
+
+            for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+                Object value = attribute.getValue();
+                String formatted;
+
+                if (value instanceof Double) {
+                    formatted = formatNumber((Double) value);
+                } else if (value instanceof Boolean) {
+                    formatted = (Boolean) value ? "1" : "0";
+                } else {
+                    continue;
+                }
+
+                String name = prefix + "_" + sanitize(attribute.getKey());
+                // the same name in two beans would make the whole scrape invalid
+                if (exported.add(name)) {
+                    builder.append("# TYPE ").append(name).append(" untyped\n");
+                    builder.append(name).append(' ').append(formatted).append('\n');
+                }
+            }
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Domain followed by the values of the key properties, e.g. Hadoop:service=HBase,name=Master,sub=Server becomes
+     * hadoop_hbase_master_server
+     */
+    static String metricPrefix(String beanName) {
+        int colon = beanName.indexOf(':');
+        StringBuilder builder = new StringBuilder(colon < 0 ? beanName : beanName.substring(0, colon));
+
+        if (colon >= 0) {
+            for (String property : beanName.substring(colon + 1).split(",")) {
+                int equals = property.indexOf('=');
+                builder.append('_').append(equals < 0 ? property : property.substring(equals + 1));
+            }
+        }
+
+        return sanitize(builder.toString());
+    }
+
+    static String sanitize(String name) {
+        StringBuilder builder = new StringBuilder(name.length());
+
+        for (char c : name.toLowerCase(Locale.ROOT).toCharArray()) {
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '_';
+            builder.append(valid ? c : '_');
+        }
+        if (builder.length() == 0 || Character.isDigit(builder.charAt(0))) {
+            builder.insert(0, '_');
+        }
+
+        return builder.toString();
+    }
+
+    static String formatNumber(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    /**
+     * Minimal JSON parser, enough for the /jmx responses: objects become maps, arrays lists and numbers doubles
+     */
+    static class JsonParser {
+        private final String json;
+        private int pos;
+
+        JsonParser(String json) {
+            this.json = json;
+        }
+
+        Object parse() {
+            Object value = parseValue();
+            skipWhitespace();
+            if (pos != json.length()) {
+                throw error("unexpected trailing content");
+            }
+            return value;
+        }
+
+        private Object parseValue() {
+            skipWhitespace();
+            if (pos >= json.length()) {
+                throw error("unexpected end of input");
+            }
+
+            char c = json.charAt(pos);
+            switch (c) {
+                case '{':
+                    return parseObject();
+                case '[':
+                    return parseArray();
+                case '"':
+                    return parseString();
+                case 't':
+                    return parseLiteral("true", Boolean.TRUE);
+                case 'f':
+                    return parseLiteral("false", Boolean.FALSE);
+                case 'n':
+                    return parseLiteral("null", null);
+                default:
+                    return parseNumber();
+            }
+        }
+
+        private Map<String, Object> parseObject() {
+            Map<String, Object> object = new LinkedHashMap<>();
+            ++pos;
+            skipWhitespace();
+            if (peek() == '}') {
+                ++pos;
+                return object;
+            }
+
+            while (true) {
+                skipWhitespace();
+                String key = parseString();
+                skipWhitespace();
+                expect(':');
+                object.put(key, parseValue());
+                skipWhitespace();
+                if (peek() == ',') {
+                    ++pos;
+                } else {
+                    expect('}');
+                    return object;
+                }
+            }
+        }
+
+        private List<Object> parseArray() {
+            List<Object> array = new ArrayList<>();
+            ++pos;
+            skipWhitespace();
+            if (peek() == ']') {
+                ++pos;
+                return array;
+            }
+
+            while (true) {
+                array.add(parseValue());
+                skipWhitespace();
+                if (peek() == ',') {
+                    ++pos;
+                } else {
+                    expect(']');
+                    return array;
+                }
+            }
+        }
+
+        private String parseString() {
+            expect('"');
+            StringBuilder builder = new StringBuilder();
+
+            while (true) {
+                if (pos >= json.length()) {
+                    throw error("unterminated string");
+                }
+                char c = json.charAt(pos++);
+                if (c == '"') {
+                    return builder.toString();
+                }
+                if (c != '\\') {
+                    builder.append(c);
+                    continue;
+                }
+
+                if (pos >= json.length()) {
+                    throw error("unterminated escape");
+                }
+                char escaped = json.charAt(pos++);
+                switch (escaped) {
+                    case 'b':
+                        builder.append('\b');
+                        break;
+                    case 'f':
+                        builder.append('\f');
+                        break;
+                    case 'n':
+                        builder.append('\n');
+                        break;
+                    case 'r':
+                        builder.append('\r');
+                        break;
+                    case 't':
+                        builder.append('\t');
+                        break;
+                    case 'u':
+                        builder.append(parseUnicodeEscape());
+                        break;
+                    default:
+                        builder.append(escaped);
+                }
+            }
+        }
+
+        private char parseUnicodeEscape() {
+            if (pos + 4 > json.length()) {
+                throw error("unterminated unicode escape");
+            }
+            try {
+                char c = (char) Integer.parseInt(json.substring(pos, pos + 4), 16);
+                pos += 4;
+                return c;
+            } catch (NumberFormatException e) {
+                throw error("invalid unicode escape");
+            }
+        }
+
+        private Object parseLiteral(String literal, Object value) {
+            if (!json.startsWith(literal, pos)) {
+                throw error("invalid literal");
+            }
+            pos += literal.length();
+            return value;
+        }
+
+        private Double parseNumber() {
+            // the JMX servlet writes non-finite doubles unquoted
+            if (json.startsWith("NaN", pos)) {
+                return (Double) parseLiteral("NaN", Double.NaN);
+            }
+            if (json.startsWith("Infinity", pos)) {
+                return (Double) parseLiteral("Infinity", Double.POSITIVE_INFINITY);
+            }
+            if (json.startsWith("-Infinity", pos)) {
+                return (Double) parseLiteral("-Infinity", Double.NEGATIVE_INFINITY);
+            }
+
+            int start = pos;
+            while (pos < json.length() && "+-0123456789.eE".indexOf(json.charAt(pos)) >= 0) {
+                ++pos;
+            }
+            if (start == pos) {
+                throw error("unexpected character");
+            }
+            return Double.valueOf(json.substring(start, pos));
+        }
+
+        private void skipWhitespace() {
+            while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+                ++pos;
+            }
+        }
+
+        private char peek() {
+            return pos < json.length() ? json.charAt(pos) : '\0';
+        }
+
+        private void expect(char c) {
+            if (peek() != c) {
+                throw error("expected '" + c + "'");
+            }
+            ++pos;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + pos);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package io.github.diogenes1oliveira.hbase2.docker;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Probe that polls the master's /jmx endpoint for the cluster status, see {@link HealthcheckServer}
+ * <p>
+ * The status line mimics the one printed by the 'status' command in the HBase shell, so the healthcheck can keep
+ * matching it against $HBASE_HEALTHCHECK_EXPECTED_STATUS without starting a JRuby interpreter and a client JVM.
+ */
+public class StatusProbe {
+    static final String MASTER_BEAN = "Hadoop:service=HBase,name=Master,sub=Server";
+    static final int TIMEOUT_MS = 1000;
+
+    private final URL jmxUrl;
+    private volatile Status status = Status.unknown("not checked yet");
+
+    public StatusProbe(int masterInfoPort) throws IOException {
+        this.jmxUrl = new URL("http://127.0.0.1:" + masterInfoPort + "/jmx?qry=" + MASTER_BEAN);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Polls the master and caches the result
+     */
+    public Status refresh() {
+        long t0 = System.nanoTime();
+        Status current;
+
+        try {
+            current = Status.fromJmx(fetch(jmxUrl));
+        } catch (IOException | RuntimeException e) {
+            current = Status.unknown("master: DOWN (" + e + ")");
+        }
+
+        current.latencyNs = System.nanoTime() - t0;
+        status = current;
+        return current;
+    }
+
+    static String fetch(URL url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(TIMEOUT_MS);
+        connection.setReadTimeout(TIMEOUT_MS);
+
+        if (connection.getResponseCode() != 200) {
+            throw new IOException("HTTP " + connection.getResponseCode() + " from " + url);
+        }
+
+        // reading the whole body lets the JDK keep the connection alive for the next poll
+        try (InputStream stream = connection.getInputStream()) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            int n;
+            while ((n = stream.read(chunk)) >= 0) {
+                buffer.write(chunk, 0, n);
+            }
+            return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    static String requireEnv(String name) {
+        String value = System.getenv(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalStateException("environment variable " + name + " is not set");
+        }
+        return value;
+    }
+
+    static String getEnv(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+
+    /**
+     * Snapshot of the cluster status as seen by the local master
+     */
+    public static class Status {
+        final boolean healthy;
+        final boolean reachable;
+        final boolean activeMaster;
+        final boolean initialized;
+        final long liveServers;
+        final long deadServers;
+        final String detail;
+        volatile long latencyNs;
+
+        Status(boolean reachable, boolean activeMaster, boolean initialized, long liveServers, long deadServers,
+                String detail) {
+            this.reachable = reachable;
+            this.activeMaster = activeMaster;
+            this.initialized = initialized;
+            this.liveServers = liveServers;
+            this.deadServers = deadServers;
+            this.healthy = activeMaster && initialized && liveServers > 0;
+            this.detail = detail;
+        }
+
+        static Status unknown(String detail) {
+            return new Status(false, false, false, 0, 0, detail);
+        }
+
+        static Status fromJmx(String json) {
+            boolean activeMaster = "true".equals(stringField(json, "tag.isActiveMaster"));
+            // the master only finishes initializing after hbase:meta and hbase:namespace are online
+            boolean initialized = longField(json, "masterFinishedInitializationTime", 0) > 0;
+            long liveServers = longField(json, "numRegionServers", 0);
+            long deadServers = longField(json, "numDeadRegionServers", 0);
+
+            String detail;
+            if (!activeMaster) {
+                detail = "master: STANDBY";
+            } else if (!initialized) {
+                detail = "master: INITIALIZING";
+            } else {
+                detail = "master: UP";
+            }
+            return new Status(true, activeMaster, initialized, liveServers, deadServers, detail);
+        }
+
+        /**
+         * Same format as the HBase shell 'status' command, only printed once the master is initialized
+         */
+        String toText() {
+            StringBuilder builder = new StringBuilder();
+            if (activeMaster && initialized) {
+                // the probe only sees the master in this container
+                builder.append(String.format("1 active master, 0 backup masters, %d servers, %d dead%n",
+                        liveServers, deadServers));
+            }
+            builder.append(detail).append('\n');
+            return builder.toString();
+        }
+
+        static String stringField(String json, String name) {
+            Matcher matcher = Pattern.compile("\"" + Pattern.quote(name) + "\"\\s*:\\s*\"([^\"]*)\"").matcher(json);
+            return matcher.find() ? matcher.group(1) : null;
+        }
+
+        static long longField(String json, String name, long defaultValue) {
+            Matcher matcher = Pattern.compile("\"" + Pattern.quote(name) + "\"\\s*:\\s*(-?[0-9]+)").matcher(json);
+            return matcher.find() ? Long.parseLong(matcher.group(1)) : defaultValue;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package io.github.diogenes1oliveira.hbase2.docker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.security.Security;
+import java.util.Iterator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Single-threaded, event-driven TCP relay used by bin/tcp-map-ports
+ * <p>
+ * All the mappings are served by one selector loop, so there's no process or thread per connection as with
+ * 'socat TCP-LISTEN:...,fork'. Each direction of a connection has a fixed buffer and stops reading while the buffer
+ * can't be written to the other side, and a half-close on one side is propagated to the other one.
+ * <p>
+ * Target hosts are resolved on each connection rather than at startup, since the other containers of a cluster might
+ * not be resolvable yet. A connection to a host that doesn't resolve is closed, for the client to retry.
+ * <p>
+ * Usage: TcpRelay LISTEN_PORT:TARGET_PORT|LISTEN_PORT:TARGET_HOST:TARGET_PORT ...
+ */
+public class TcpRelay implements Closeable {
+    static final int BUFFER_SIZE = 64 * 1024;
+    static final Pattern SPEC_PATTERN = Pattern.compile("([0-9]+):(?:([a-zA-Z0-9.-]+):)?([0-9]+)");
+
+    private final Selector selector;
+    private volatile boolean closed;
+
+    public TcpRelay() throws IOException {
+        this.selector = Selector.open();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: TcpRelay LISTEN_PORT:TARGET_PORT|LISTEN_PORT:TARGET_HOST:TARGET_PORT ...");
+            System.exit(1);
+        }
+
+        // a peer that doesn't resolve yet must be found as soon as it does, and a restarted one at its new address
+        Security.setProperty("networkaddress.cache.negative.ttl", "0");
+        Security.setProperty("networkaddress.cache.ttl", "5");
+
+        TcpRelay relay = new TcpRelay();
+        for (String spec : args) {
+            Mapping mapping = Mapping.parse(spec);
+            relay.listen(mapping.listenPort, mapping.targetHost, mapping.targetPort);
+            System.err.println("INFO: mapping " + mapping);
+        }
+
+        relay.run();
+    }
+
+    /**
+     * Starts listening for connections to relay to the target, which is only resolved once a connection arrives
+     * <p>
+     * Must be called before {@link #run()}.
+     *
+     * @return port actually bound, which differs from listenPort if it is 0
+     */
+    public int listen(int listenPort, String targetHost, int targetPort) throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        server.bind(new InetSocketAddress(listenPort), 128);
+        server.configureBlocking(false);
+
+        int boundPort = server.socket().getLocalPort();
+        server.register(selector, SelectionKey.OP_ACCEPT, new Mapping(boundPort, targetHost, targetPort));
+
+        return boundPort;
+    }
+
+    /**
+     * Serves the connections until {@link #close()} is called
+     */
+    public void run() throws IOException {
+        while (!closed) {
+            selector.select();
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+
+                if (!key.isValid()) {
+                    continue;
+                }
+                if (key.isAcceptable()) {
+                    accept(key);
+                    continue;
+                }
+
+                Endpoint endpoint = (Endpoint) key.attachment();
+                try {
+                    if (key.isConnectable()) {
+                        connected(endpoint);
+                    } else {
+                        if (key.isReadable()) {
+                            endpoint.read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            endpoint.peer.flush();
+                        }
+                    }
+                } catch (IOException e) {
+                    endpoint.close();
+                }
+            }
+        }
+
+        for (SelectionKey key : selector.keys()) {
+            try {
+                key.channel().close();
+            } catch (IOException e) {
+                // nothing else to do
+            }
+        }
+        selector.close();
+    }
+
+    /**
+     * Makes {@link #run()} close all the listeners and connections and return
+     */
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+    }
+
+    private void accept(SelectionKey key) {
+        Mapping target = (Mapping) key.attachment();
+        SocketChannel client = null;
+        SocketChannel upstream = null;
+
+        try {
+            client = ((ServerSocketChannel) key.channel()).accept();
+            if (client == null) {
+                return;
+            }
+            upstream = SocketChannel.open();
+            for (SocketChannel channel : new SocketChannel[]{client, upstream}) {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            }
+
+            Endpoint clientEndpoint = new Endpoint(client);
+            Endpoint upstreamEndpoint = new Endpoint(upstream);
+            clientEndpoint.peer = upstreamEndpoint;
+            upstreamEndpoint.peer = clientEndpoint;
+
+            // the client is only read after the upstream connection is established
+            clientEndpoint.key = client.register(selector, 0, clientEndpoint);
+            upstreamEndpoint.key = upstream.register(selector, SelectionKey.OP_CONNECT, upstreamEndpoint);
+            if (upstream.connect(target.resolve())) {
+                connected(upstreamEndpoint);
+            }
+        } catch (IOException e) {
+            System.err.println("WARN: failed to relay connection to " + target + ": " + e);
+            closeQuietly(client);
+            closeQuietly(upstream);
+        }
+    }
+
+    private static void connected(Endpoint upstream) throws IOException {
+        if (!upstream.channel.finishConnect()) {
+            return;
+        }
+        upstream.connected = true;
+        upstream.updateInterest();
+        upstream.peer.updateInterest();
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // nothing else to do
+            }
+        }
+    }
+
+    /**
+     * LISTEN_PORT:TARGET_PORT or LISTEN_PORT:TARGET_HOST:TARGET_PORT, the former targeting localhost
+     */
+    static class Mapping {
+        final int listenPort;
+        final String targetHost;
+        final int targetPort;
+
+        Mapping(int listenPort, String targetHost, int targetPort) {
+            this.listenPort = listenPort;
+            this.targetHost = targetHost;
+            this.targetPort = targetPort;
+        }
+
+        static Mapping parse(String spec) {
+            Matcher matcher = SPEC_PATTERN.matcher(spec);
+            if (!matcher.matches()) {
+                throw new IllegalArgumentException("invalid mapping spec '" + spec + "'");
+            }
+
+            int listenPort = Integer.parseInt(matcher.group(1));
+            String targetHost = matcher.group(2) == null ? "localhost" : matcher.group(2);
+            int targetPort = Integer.parseInt(matcher.group(3));
+            if (listenPort > 65535 || targetPort > 65535) {
+                throw new IllegalArgumentException("invalid port in mapping spec '" + spec + "'");
+            }
+
+            return new Mapping(listenPort, targetHost, targetPort);
+        }
+
+        /**
+         * Looks the target up again, so an address that changed or didn't exist before is found
+         */
+        InetSocketAddress resolve() throws UnknownHostException {
+            // HBase only listens on IPv4, so localhost must not resolve to ::1
+            InetAddress address = "localhost".equals(targetHost)
+                    ? InetAddress.getByName("127.0.0.1")
+                    : InetAddress.getByName(targetHost);
+            return new InetSocketAddress(address, targetPort);
+        }
+
+        @Override
+        public String toString() {
+            return ":" + listenPort + " to " + targetHost + ":" + targetPort;
+        }
+    }
+
+    /**
+     * One side of a relayed connection, buffering the bytes read from it until they're written to the peer
+     */
+    static class Endpoint {
+        final SocketChannel channel;
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        Endpoint peer;
+        SelectionKey key;
+        boolean connected;
+        boolean inputClosed;
+        boolean outputClosed;
+
+        Endpoint(SocketChannel channel) {
+            this.channel = channel;
+            this.connected = channel.isConnected();
+        }
+
+        void read() throws IOException {
+            if (channel.read(buffer) < 0) {
+                inputClosed = true;
+            }
+            flush();
+        }
+
+        /**
+         * Writes the buffered bytes to the peer, propagating the end of the input once they're all written
+         */
+        void flush() throws IOException {
+            buffer.flip();
+            peer.channel.write(buffer);
+            buffer.compact();
+
+            if (inputClosed && buffer.position() == 0 && !peer.outputClosed) {
+                peer.channel.shutdownOutput();
+                peer.outputClosed = true;
+            }
+
+            if (outputClosed && peer.outputClosed) {
+                close();
+                return;
+            }
+            updateInterest();
+            peer.updateInterest();
+        }
+
+        void updateInterest() {
+            if (!key.isValid() || !connected || !peer.connected) {
+                return;
+            }
+
+            int ops = 0;
+            if (!inputClosed && buffer.hasRemaining()) {
+                ops |= SelectionKey.OP_READ;
+            }
+            if (!outputClosed && peer.buffer.position() > 0) {
+                ops |= SelectionKey.OP_WRITE;
+            }
+            key.interestOps(ops);
+        }
+
+        void close() {
+            closeQuietly(channel);
+            closeQuietly(peer.channel);
+        }
+    }
+}